@@ -51,6 +51,84 @@ blossom {
 java.sourceCompatibility = JavaVersion.VERSION_1_8
 java.targetCompatibility = JavaVersion.VERSION_1_8
 
+// Classes which replace or extend the main ones on newer runtimes, packaged into the multi-release part of the jar
+val java11: SourceSet by sourceSets.creating {
+	compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+}
+
+tasks.named<JavaCompile>(java11.compileJavaTaskName) {
+	sourceCompatibility = "11"
+	targetCompatibility = "11"
+	options.release.set(11)
+}
+
+// Version data embedded in the jar, so the gui has versions to show before it has ever reached the network.
+// The installer refreshes them in the background and caches the result, so these only matter on the first run.
+// The snapshot is kept in the versionSnapshot directory and committed with the sources, so the jar only depends on
+// the tree. Create or refresh it by running `./gradlew updateVersionSnapshot` and committing the result; every build
+// fails while any of it is missing.
+val versionSnapshotDir = file("versionSnapshot")
+val versionSnapshotUrls = listOf(
+	"https://meta.ornithemc.net/v3/versions/fabric-loader",
+	"https://meta.ornithemc.net/v3/versions/quilt-loader",
+	"https://meta.ornithemc.net/v3/versions/intermediary",
+	"https://ornithemc.net/mc-versions/version_manifest.json",
+)
+
+fun versionSnapshotFile(url: String): File {
+	val uri = URI(url)
+	return versionSnapshotDir.resolve("snapshot/${uri.host}${uri.path}")
+}
+
+tasks.register("updateVersionSnapshot") {
+	group = "build setup"
+	description = "Fetches the version data embedded in the installer"
+
+	doLast {
+		if (gradle.startParameter.isOffline) {
+			throw GradleException("Cannot update the version snapshot in offline mode")
+		}
+
+		// Fetch everything first, so a failure leaves the previous snapshot untouched
+		val fetched = versionSnapshotUrls.associateWith { url ->
+			try {
+				val connection = URI(url).toURL().openConnection()
+				connection.connectTimeout = 10_000
+				connection.readTimeout = 30_000
+				connection.setRequestProperty("User-Agent", "Ornithe-Installer-Build/${project.version}")
+				connection.getInputStream().use { it.readBytes() }
+			} catch (e: java.io.IOException) {
+				throw GradleException("Could not fetch $url", e)
+			}
+		}
+
+		for ((url, bytes) in fetched) {
+			val file = versionSnapshotFile(url)
+			file.parentFile.mkdirs()
+			file.writeBytes(bytes)
+		}
+	}
+}
+
+val checkVersionSnapshot = tasks.register("checkVersionSnapshot") {
+	description = "Fails if the version snapshot is incomplete"
+
+	doLast {
+		val missing = versionSnapshotUrls.filter { !versionSnapshotFile(it).isFile }
+
+		if (missing.isNotEmpty()) {
+			throw GradleException("The version snapshot is missing $missing, run updateVersionSnapshot first")
+		}
+	}
+}
+
+tasks.processResources {
+	from(versionSnapshotDir)
+
+	// No build may silently ship without a snapshot
+	dependsOn(checkVersionSnapshot)
+}
+
 // Cannot use application for the time being because shadow does not like mainClass being set for some reason.
 // There is a PR which has fixed this, so update shadow probably when 6.10.1 or 6.11 is out
 //application {
@@ -65,10 +143,18 @@ tasks.jar {
 
 		attributes["Main-Class"] = "org.quiltmc.installer.Main"
 	}
+
+	into("META-INF/versions/11") {
+		from(java11.output)
+	}
 }
 
 tasks.shadowJar {
 	relocate("org.quiltmc.parsers.json", "org.quiltmc.installer.lib.parsers.json")
+
+	into("META-INF/versions/11") {
+		from(java11.output)
+	}
 //	minimize()
 
 	// Compiler does not know which set method we are targeting with null value
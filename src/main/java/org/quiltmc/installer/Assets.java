@@ -0,0 +1,262 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.installer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.installer.util.Hashes;
+import org.quiltmc.parsers.json.JsonReader;
+
+/**
+ * Downloads the asset index and asset objects of a Minecraft version into an assets directory,
+ * laid out the way the launchers expect it, so the game does not fetch them one by one on first launch.
+ *
+ * <p>Objects are content addressed, so every object already in the directory is skipped. The directory is listed
+ * once up front rather than checking each of the several thousand objects separately.
+ */
+public final class Assets {
+	private static final String RESOURCES_URL = "https://resources.download.minecraft.net/";
+
+	/**
+	 * @param versionJson the vanilla launch json of a version
+	 * @return whether the launch json has an asset index its assets can be prefetched from
+	 */
+	public static boolean hasAssetIndex(Map<?, ?> versionJson) {
+		Object assetIndex = versionJson.get("assetIndex");
+
+		if (!(assetIndex instanceof Map)) {
+			return false;
+		}
+
+		Map<?, ?> indexFields = (Map<?, ?>) assetIndex;
+		return indexFields.get("id") instanceof String && indexFields.get("url") instanceof String;
+	}
+
+	/**
+	 * Downloads the assets of a version which are not in the assets directory yet.
+	 *
+	 * @param assetsDir the assets directory, such as {@code .minecraft/assets}
+	 * @param versionJson the vanilla launch json of the version, which must have an asset index
+	 * @param progress the progress to report the downloads to
+	 * @return a future which completes with the number of objects which were downloaded
+	 */
+	public static CompletableFuture<Integer> prefetch(Path assetsDir, Map<?, ?> versionJson, DownloadProgress progress) {
+		if (!hasAssetIndex(versionJson)) {
+			throw new IllegalArgumentException("Launch json has no asset index with an id and url");
+		}
+
+		Map<?, ?> indexFields = (Map<?, ?>) versionJson.get("assetIndex");
+		Object id = indexFields.get("id");
+		Object url = indexFields.get("url");
+		Object sha1 = indexFields.get("sha1");
+
+		Path indexPath = assetsDir.resolve("indexes").resolve(id + ".json");
+		Path objectsDir = assetsDir.resolve("objects");
+
+		return DownloadScheduler.submit((String) url, () -> {
+			try {
+				return readIndex(indexPath, (String) url, sha1 instanceof String ? (String) sha1 : null);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e); // Handled via .exceptionally(...)
+			}
+		}).thenCompose(objects -> {
+			Map<String, Long> missing;
+
+			try {
+				missing = findMissing(objectsDir, objects);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e); // Handled via .exceptionally(...)
+			}
+
+			if (missing.isEmpty()) {
+				return CompletableFuture.completedFuture(0);
+			}
+
+			if (Connections.isOffline()) {
+				throw new UncheckedIOException(new IOException(String.format("%d asset objects are missing and cannot be downloaded in offline mode", missing.size())));
+			}
+
+			long length = missing.values().stream().mapToLong(Long::longValue).sum();
+			DownloadProgress.Tracker tracker = progress.tracker("assets " + id, length);
+			List<CompletableFuture<Void>> downloads = new ArrayList<>(missing.size());
+
+			for (String hash : missing.keySet()) {
+				String objectUrl = RESOURCES_URL + hash.substring(0, 2) + "/" + hash;
+
+				downloads.add(DownloadScheduler.submit(objectUrl, () -> {
+					try {
+						downloadObject(objectsDir, hash, objectUrl, tracker);
+						return null;
+					} catch (IOException e) {
+						throw new UncheckedIOException(e); // Handled via .exceptionally(...)
+					}
+				}));
+			}
+
+			return CompletableFuture.allOf(downloads.toArray(new CompletableFuture[0])).thenApply(v -> missing.size());
+		});
+	}
+
+	/**
+	 * Reads the asset index, downloading it first unless the copy on disk has the expected hash.
+	 *
+	 * @return the objects of the index
+	 */
+	private static Map<?, ?> readIndex(Path indexPath, String url, @Nullable String sha1) throws IOException {
+		byte[] bytes = null;
+
+		if (Files.exists(indexPath)) {
+			bytes = Files.readAllBytes(indexPath);
+
+			if (sha1 != null && !sha1.equalsIgnoreCase(Hashes.toHex(Hashes.sha1().digest(bytes)))) {
+				bytes = null;
+			}
+		}
+
+		if (bytes == null) {
+			if (Connections.isOffline()) {
+				throw new IOException(String.format("Asset index %s is missing and cannot be downloaded in offline mode", indexPath.getFileName()));
+			}
+
+			try (HttpTransport.Response response = Connections.get(new URL(url))) {
+				bytes = HttpCache.readAllBytes(response.body());
+			}
+
+			String hash = Hashes.toHex(Hashes.sha1().digest(bytes));
+
+			if (sha1 != null && !sha1.equalsIgnoreCase(hash)) {
+				throw new IOException(String.format("Asset index from %s has hash %s, expected %s", url, hash, sha1));
+			}
+
+			Files.createDirectories(indexPath.getParent());
+			Path tmp = Files.createTempFile(indexPath.getParent(), indexPath.getFileName().toString(), ".tmp");
+
+			try {
+				Files.write(tmp, bytes);
+				Files.move(tmp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(tmp);
+			}
+		}
+
+		Object index = Gsons.read(JsonReader.json(new String(bytes, StandardCharsets.UTF_8)));
+		Object objects = index instanceof Map ? ((Map<?, ?>) index).get("objects") : null;
+
+		if (!(objects instanceof Map)) {
+			throw new IOException("Asset index " + indexPath.getFileName() + " has no objects");
+		}
+
+		return (Map<?, ?>) objects;
+	}
+
+	/**
+	 * Finds the objects of an asset index which are not in the objects directory yet.
+	 *
+	 * @return the size of every missing object, by hash
+	 */
+	private static Map<String, Long> findMissing(Path objectsDir, Map<?, ?> objects) throws IOException {
+		Set<String> present = new HashSet<>();
+
+		if (Files.isDirectory(objectsDir)) {
+			// One listing per prefix directory is far cheaper than checking every object separately
+			try (DirectoryStream<Path> prefixes = Files.newDirectoryStream(objectsDir, Files::isDirectory)) {
+				for (Path prefix : prefixes) {
+					try (DirectoryStream<Path> files = Files.newDirectoryStream(prefix)) {
+						for (Path file : files) {
+							present.add(file.getFileName().toString());
+						}
+					}
+				}
+			}
+		}
+
+		// Several assets often share the same object, which only needs to be downloaded once
+		Map<String, Long> missing = new LinkedHashMap<>();
+
+		for (Object object : objects.values()) {
+			if (!(object instanceof Map)) {
+				throw new IOException("All asset objects must be json objects!");
+			}
+
+			Object hash = ((Map<?, ?>) object).get("hash");
+			Object size = ((Map<?, ?>) object).get("size");
+
+			if (!(hash instanceof String) || !((String) hash).matches("[0-9a-fA-F]{40}")) {
+				throw new IOException("Asset object has an invalid hash " + hash);
+			}
+
+			String lower = ((String) hash).toLowerCase(Locale.ROOT);
+
+			if (!present.contains(lower)) {
+				missing.put(lower, size instanceof Number ? ((Number) size).longValue() : 0L);
+			}
+		}
+
+		return missing;
+	}
+
+	private static void downloadObject(Path objectsDir, String hash, String url, DownloadProgress.Tracker tracker) throws IOException {
+		Path path = objectsDir.resolve(hash.substring(0, 2)).resolve(hash);
+		Files.createDirectories(path.getParent());
+		Path tmp = Files.createTempFile(path.getParent(), hash, ".tmp");
+
+		try {
+			MessageDigest digest = Hashes.sha1();
+
+			// Closing the response closes the body as well
+			try (HttpTransport.Response response = Connections.get(new URL(url))) {
+				Files.copy(new DigestInputStream(tracker.track(response.body()), digest), tmp, StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			String actual = Hashes.toHex(digest.digest());
+
+			if (!hash.equalsIgnoreCase(actual)) {
+				throw new IOException(String.format("Asset object from %s has hash %s", url, actual));
+			}
+
+			try {
+				Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE);
+			} catch (FileAlreadyExistsException ignored) {
+				// Another installation downloaded the same object in the meantime
+			}
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	private Assets() {
+	}
+}
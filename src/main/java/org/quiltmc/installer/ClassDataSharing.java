@@ -0,0 +1,176 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.installer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.BindException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the class data sharing archive of a server installation.
+ *
+ * <p>The archive is created by a training run, which starts the server with {@code -XX:ArchiveClassesAtExit}
+ * and stops it again. The JVM then dumps every class loaded along the way, so later starts map them from the
+ * archive instead of loading and verifying them from the jars. The launch scripts use the archive when it exists.
+ *
+ * <p>The training run is a regular start of the server in its installation directory, since the archive only works
+ * with the class path it was created with. It therefore loads or generates the configured world and binds the
+ * configured port, just like starting the server by hand would. It is only started when the eula has been accepted,
+ * since the server otherwise stops before loading most of its classes, and when nothing is listening on its port,
+ * which most likely means the server is already running.
+ *
+ * <p>The training run uses the Java running the installer, which must be Java 13 or newer. An archive only works
+ * with the Java build that created it, other builds ignore it and start as usual.
+ */
+public final class ClassDataSharing {
+	/**
+	 * The first version supporting dynamic archives.
+	 */
+	public static final int MIN_JAVA_VERSION = 13;
+	/**
+	 * How long the training run may take, in seconds. It is stopped once it is done starting up,
+	 * which can take a while when a world needs to be generated.
+	 */
+	private static final long TIMEOUT = Long.getLong("ornithe.installer.cdsTimeout", TimeUnit.MINUTES.toSeconds(5));
+	private static final String LOG_FILE = "cds-training.log";
+	private static final int DEFAULT_PORT = 25565;
+
+	public static boolean isSupported() {
+		return ServerScripts.Host.javaVersion() >= MIN_JAVA_VERSION;
+	}
+
+	/**
+	 * @return whether the eula in the installation directory has been accepted
+	 */
+	public static boolean isEulaAccepted(Path installDir) throws IOException {
+		return "true".equalsIgnoreCase(readProperties(installDir.resolve("eula.txt")).getProperty("eula"));
+	}
+
+	/**
+	 * @return whether the port the server is configured to listen on is already taken
+	 */
+	public static boolean isPortInUse(Path installDir) throws IOException {
+		int port;
+
+		try {
+			port = Integer.parseInt(readProperties(installDir.resolve("server.properties")).getProperty("server-port", String.valueOf(DEFAULT_PORT)).trim());
+		} catch (NumberFormatException e) {
+			port = DEFAULT_PORT;
+		}
+
+		try (ServerSocket socket = new ServerSocket(port)) {
+			return false;
+		} catch (BindException e) {
+			return true;
+		}
+	}
+
+	private static Properties readProperties(Path path) throws IOException {
+		Properties properties = new Properties();
+
+		if (Files.exists(path)) {
+			try (InputStream stream = Files.newInputStream(path)) {
+				properties.load(stream);
+			}
+		}
+
+		return properties;
+	}
+
+	/**
+	 * Runs the training run and writes the archive next to the launch jar, replacing any existing one.
+	 *
+	 * @param installDir the server installation directory
+	 * @param launchJar the file name of the launch jar
+	 * @return the path of the archive
+	 * @throws IOException if the training run cannot start or fails, or does not produce an archive
+	 */
+	public static Path train(Path installDir, String launchJar) throws IOException {
+		if (!isSupported()) {
+			throw new IOException(String.format("Creating a class data sharing archive requires Java %d or newer", MIN_JAVA_VERSION));
+		}
+
+		// Without the eula the server stops right after bootstrap, which would make for a mostly empty archive
+		if (!isEulaAccepted(installDir)) {
+			throw new IOException("The training run requires accepting the eula in eula.txt first");
+		}
+
+		if (isPortInUse(installDir)) {
+			throw new IOException("The port of the server is in use, stop the server before the training run");
+		}
+
+		String archive = ServerScripts.cdsArchive(launchJar);
+		String tmpArchive = archive + ".tmp";
+		Path log = installDir.resolve(LOG_FILE);
+		Files.deleteIfExists(installDir.resolve(tmpArchive));
+
+		// Same working directory and jar path as the launch scripts, since the archive is only used with the class path it was created with
+		Process process = new ProcessBuilder(
+				Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+				"-XX:ArchiveClassesAtExit=" + tmpArchive,
+				"-jar", launchJar,
+				"nogui"
+		).directory(installDir.toFile()).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+
+		try {
+			// Queued until the server is done starting
+			try (OutputStream stdin = process.getOutputStream()) {
+				stdin.write("stop\n".getBytes(StandardCharsets.UTF_8));
+			} catch (IOException ignored) {
+				// Already exited
+			}
+
+			if (!process.waitFor(TIMEOUT, TimeUnit.SECONDS)) {
+				// Still dumps the archive as long as the server shuts down in time
+				process.destroy();
+
+				if (!process.waitFor(30, TimeUnit.SECONDS)) {
+					process.destroyForcibly();
+					throw new IOException(String.format("Training run did not stop, see %s", log));
+				}
+			}
+		} catch (InterruptedException e) {
+			process.destroyForcibly();
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted during the training run", e);
+		}
+
+		Path created = installDir.resolve(tmpArchive);
+
+		if (!Files.exists(created)) {
+			throw new IOException(String.format("Training run exited with code %d without creating an archive, see %s", process.exitValue(), log));
+		}
+
+		Path target = installDir.resolve(archive);
+		Files.move(created, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		Files.deleteIfExists(log);
+
+		return target;
+	}
+
+	private ClassDataSharing() {
+	}
+}
@@ -16,14 +16,25 @@
 
 package org.quiltmc.installer;
 
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.Locale;
 import java.util.Map;
 import java.util.OptionalInt;
+import java.util.OptionalLong;
 import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.jetbrains.annotations.Nullable;
 import org.quiltmc.installer.action.Action;
+import org.quiltmc.installer.action.InstallClient;
+import org.quiltmc.installer.action.InstallMessage;
+import org.quiltmc.installer.action.InstallServer;
+import org.quiltmc.installer.action.UpgradeServer;
+import org.quiltmc.installer.action.ManageCache;
 
 /**
  * The main entrypoint when installing from the command line.
@@ -46,14 +57,17 @@ public final class CliInstaller {
 
 		Action<?> action = parse(builder.toString());
 
-		action.run(msg -> {
-			if (action != Action.DISPLAY_HELP) {
-				// TODO: Do we want to add some sort of hanging carriage percentage tracker?
-				// TODO: Implement CLI tracker
-			}
-
-			// Help shouldn't need a progress bar
-		});
+		if (action instanceof InstallClient) {
+			((InstallClient) action).run(new ProgressPrinter());
+		} else if (action instanceof InstallServer) {
+			((InstallServer) action).run(new ProgressPrinter());
+		} else if (action instanceof UpgradeServer) {
+			((UpgradeServer) action).run(new ProgressPrinter());
+		} else {
+			// Help and the other actions shouldn't need a progress bar
+			action.run(msg -> {
+			});
+		}
 	}
 
 	/**
@@ -65,6 +79,15 @@ public final class CliInstaller {
 	private static Action<?> parse(String input) {
 		Queue<String> split = splitQuoted(input);
 
+		if (!parseGlobalOptions(split)) {
+			return Action.DISPLAY_HELP;
+		}
+
+		if (split.isEmpty()) {
+			System.err.println("No action was specified");
+			return Action.DISPLAY_HELP;
+		}
+
 		String arg = split.remove();
 
 		switch (arg) {
@@ -123,8 +146,9 @@ public final class CliInstaller {
 
 					int gen = Integer.parseInt(value);
 
-					if (gen < 1 || gen > IntermediaryGenerations.latest()) {
-						System.err.println("Option \"--intermediary-generation\" value \"" + gen + "\" is not valid! Value must be between 1 and " + IntermediaryGenerations.latest() + ".");
+					// The upper bound is checked once the generations have been looked up, so parsing does not wait on the network
+					if (gen < 1) {
+						System.err.println("Option \"--intermediary-generation\" value \"" + gen + "\" is not valid! Value must be at least 1.");
 						return Action.DISPLAY_HELP;
 					}
 
@@ -178,7 +202,7 @@ public final class CliInstaller {
 
 				// At this point all the require arguments have been parsed
 				if (split.size() == 0) {
-					return Action.installClient(minecraftVersion, launcherType, loaderType, null, intermediaryGen, null, null, false, false);
+					return Action.installClient(minecraftVersion, launcherType, loaderType, null, intermediaryGen, null, null, false, false, false, false, null);
 				}
 
 				// Try to parse loader version first
@@ -193,7 +217,7 @@ public final class CliInstaller {
 
 				// No more arguments, just loader version
 				if (split.size() == 0) {
-					return Action.installClient(minecraftVersion, launcherType, loaderType, loaderVersion, intermediaryGen, null, null, false, false);
+					return Action.installClient(minecraftVersion, launcherType, loaderType, loaderVersion, intermediaryGen, null, null, false, false, false, false, null);
 				}
 
 				// There are some additional options
@@ -220,6 +244,37 @@ public final class CliInstaller {
 						}
 
 						options.put("--copy-profile-path", null);
+					} else if (option.equals("--download-libraries")) {
+						if (options.containsKey("--download-libraries")) {
+							System.err.println("Encountered duplicate option \"--download-libraries\", This shouldn't affect anything");
+						}
+
+						options.put("--download-libraries", null);
+					} else if (option.equals("--download-assets")) {
+						if (options.containsKey("--download-assets")) {
+							System.err.println("Encountered duplicate option \"--download-assets\", This shouldn't affect anything");
+						}
+
+						options.put("--download-assets", null);
+					} else if (option.startsWith("--assets-dir")) {
+						if (options.containsKey("--assets-dir")) {
+							System.err.println("Encountered duplicate option \"--assets-dir\"");
+							return Action.DISPLAY_HELP;
+						}
+
+						if (!option.startsWith("--assets-dir=")) {
+							System.err.println("Option \"--assets-dir\" must have a equals sign (=) right after the option name to get the value");
+							return Action.DISPLAY_HELP;
+						}
+
+						String value = unqoute(option.substring(13));
+
+						if (value == null) {
+							System.err.println("Option \"--assets-dir\" must have value quoted at start and end of value");
+							return Action.DISPLAY_HELP;
+						}
+
+						options.put("--assets-dir", value);
 					// Common option
 					} else if (option.startsWith("--install-dir")) {
 						if (options.containsKey("--install-dir")) {
@@ -265,8 +320,8 @@ public final class CliInstaller {
 
 						int gen = Integer.parseInt(value);
 
-						if (gen < 1 || gen > IntermediaryGenerations.latest()) {
-							System.err.println("Option \"--intermediary-generation\" value \"" + gen + "\" is not valid! Value must be between 1 and " + IntermediaryGenerations.latest() + ".");
+						if (gen < 1) {
+							System.err.println("Option \"--intermediary-generation\" value \"" + gen + "\" is not valid! Value must be at least 1.");
 							return Action.DISPLAY_HELP;
 						}
 
@@ -277,7 +332,7 @@ public final class CliInstaller {
 					}
 				}
 
-				return Action.installClient(minecraftVersion, launcherType, loaderType, loaderVersion, intermediaryGen, null, options.get("--install-dir"), !options.containsKey("--no-profile"), options.containsKey("--copy-profile-path"));
+				return Action.installClient(minecraftVersion, launcherType, loaderType, loaderVersion, intermediaryGen, null, options.get("--install-dir"), !options.containsKey("--no-profile"), options.containsKey("--copy-profile-path"), options.containsKey("--download-libraries"), options.containsKey("--download-assets"), options.get("--assets-dir"));
 			}
 			case "server": {
 				if (split.size() < 1) {
@@ -301,7 +356,7 @@ public final class CliInstaller {
 
 				// At this point all the require arguments have been parsed
 				if (split.size() == 0) {
-					return Action.installServer(minecraftVersion, loaderType, null, intermediaryGen, null, null, false, false);
+					return Action.installServer(minecraftVersion, loaderType, null, intermediaryGen, null, null, null, false, false, false, false);
 				}
 
 				// Try to parse loader version first
@@ -316,11 +371,14 @@ public final class CliInstaller {
 
 				// No more arguments, just loader version
 				if (split.size() == 0) {
-					return Action.installServer(minecraftVersion, loaderType, loaderVersion, intermediaryGen, null, null, false, false);
+					return Action.installServer(minecraftVersion, loaderType, loaderVersion, intermediaryGen, null, null, null, false, false, false, false);
 				}
 
 				// There are some additional options
 				Map<String, String> options = new LinkedHashMap<>();
+				OptionalLong heap = OptionalLong.empty();
+				@Nullable
+				ServerScripts.GarbageCollector gc = null;
 
 				while (split.peek() != null) {
 					String option = split.remove();
@@ -342,6 +400,40 @@ public final class CliInstaller {
 						}
 
 						options.put("--download-server", null);
+					} else if (option.equals("--bundle")) {
+						if (options.containsKey("--bundle")) {
+							System.err.println("Encountered duplicate option \"--bundle\", This shouldn't affect anything");
+						}
+
+						options.put("--bundle", null);
+					} else if (option.equals("--cds")) {
+						if (options.containsKey("--cds")) {
+							System.err.println("Encountered duplicate option \"--cds\", This shouldn't affect anything");
+						}
+
+						options.put("--cds", null);
+					} else if (option.equals("--remap")) {
+						if (options.containsKey("--remap")) {
+							System.err.println("Encountered duplicate option \"--remap\", This shouldn't affect anything");
+						}
+
+						options.put("--remap", null);
+					} else if (option.startsWith("--heap=")) {
+						long megabytes = parseMegabytes(option.substring(7));
+
+						if (megabytes <= 0) {
+							System.err.println("Option \"--heap\" must be a size such as 4096M or 4G");
+							return Action.DISPLAY_HELP;
+						}
+
+						heap = OptionalLong.of(megabytes);
+					} else if (option.startsWith("--gc=")) {
+						gc = ServerScripts.GarbageCollector.of(option.substring(5));
+
+						if (gc == null) {
+							System.err.println("Option \"--gc\" must be one of g1, zgc or parallel");
+							return Action.DISPLAY_HELP;
+						}
 					// Common option
 					} else if (option.startsWith("--install-dir")) {
 						if (options.containsKey("--install-dir")) {
@@ -387,8 +479,8 @@ public final class CliInstaller {
 
 						int gen = Integer.parseInt(value);
 
-						if (gen < 1 || gen > IntermediaryGenerations.latest()) {
-							System.err.println("Option \"--intermediary-generation\" value \"" + gen + "\" is not valid! Value must be between 1 and " + IntermediaryGenerations.latest() + ".");
+						if (gen < 1) {
+							System.err.println("Option \"--intermediary-generation\" value \"" + gen + "\" is not valid! Value must be at least 1.");
 							return Action.DISPLAY_HELP;
 						}
 
@@ -399,19 +491,207 @@ public final class CliInstaller {
 					}
 				}
 
-				return Action.installServer(minecraftVersion, loaderType, loaderVersion, intermediaryGen, null, options.get("--install-dir"), options.containsKey("--create-scripts"), options.containsKey("--download-server"));
+				@Nullable
+				ServerScripts.Options scriptOptions = null;
+
+				if (options.containsKey("--create-scripts")) {
+					scriptOptions = new ServerScripts.Options(heap, gc);
+				} else if (heap.isPresent() || gc != null) {
+					System.err.println("Options \"--heap\" and \"--gc\" only apply together with \"--create-scripts\"");
+				}
+
+				return Action.installServer(minecraftVersion, loaderType, loaderVersion, intermediaryGen, null, options.get("--install-dir"), scriptOptions, options.containsKey("--download-server"), options.containsKey("--bundle"), options.containsKey("--remap"), options.containsKey("--cds"));
 			}
 			default:
 				System.err.printf("Invalid side \"%s\", expected \"client\" or \"server\"%n", arg);
 				return Action.DISPLAY_HELP;
 			}
 
+		case "upgrade": {
+			if (split.isEmpty() || !split.remove().equals("server")) {
+				System.err.println("Only server installations can be upgraded, expected \"upgrade server\"");
+				return Action.DISPLAY_HELP;
+			}
+
+			if (split.size() < 2) {
+				System.err.println("Minecraft version and loader type are required");
+				return Action.DISPLAY_HELP;
+			}
+
+			String minecraftVersion = split.remove();
+			String rawLoaderType = split.remove();
+			LoaderType loaderType = LoaderType.of(rawLoaderType);
+
+			if (loaderType == null) {
+				System.err.println("Unknown loader type: " + rawLoaderType);
+				return Action.DISPLAY_HELP;
+			}
+
+			@Nullable
+			String loaderVersion = split.peek() != null && !split.peek().startsWith("-") ? split.remove() : null;
+			@Nullable
+			String installDir = null;
+			boolean downloadServer = false;
+			boolean bundle = false;
+
+			while (split.peek() != null) {
+				String option = split.remove();
+
+				if (option.equals("--download-server")) {
+					downloadServer = true;
+				} else if (option.equals("--bundle")) {
+					bundle = true;
+				} else if (option.startsWith("--install-dir=")) {
+					installDir = unqoute(option.substring(14));
+
+					if (installDir == null) {
+						System.err.println("Option \"--install-dir\" must have value quoted at start and end of value");
+						return Action.DISPLAY_HELP;
+					}
+				} else {
+					System.err.printf("Invalid option %s%n", option);
+					return Action.DISPLAY_HELP;
+				}
+			}
+
+			return Action.upgradeServer(minecraftVersion, loaderType, loaderVersion, OptionalInt.empty(), installDir, downloadServer, bundle);
+		}
+		case "cache": {
+			if (split.size() == 0) {
+				System.err.println("Cache operation is required: \"list\", \"prune\" or \"clear\"");
+				return Action.DISPLAY_HELP;
+			}
+
+			arg = split.remove();
+
+			switch (arg) {
+			case "list":
+				return Action.manageCache(ManageCache.Mode.LIST, HttpCache.DEFAULT_MAX_SIZE, HttpCache.DEFAULT_MAX_AGE);
+			case "clear":
+				return Action.manageCache(ManageCache.Mode.CLEAR, 0, 0);
+			case "prune":
+				break;
+			default:
+				System.err.printf("Invalid cache operation \"%s\", expected \"list\", \"prune\" or \"clear\"%n", arg);
+				return Action.DISPLAY_HELP;
+			}
+
+			long maxSize = HttpCache.DEFAULT_MAX_SIZE;
+			long maxAge = HttpCache.DEFAULT_MAX_AGE;
+
+			while (split.peek() != null) {
+				String option = split.remove();
+
+				if (option.startsWith("--max-size=")) {
+					try {
+						maxSize = Long.parseLong(option.substring(11)) * 1024 * 1024;
+					} catch (NumberFormatException e) {
+						System.err.println("Option \"--max-size\" must be a whole number of megabytes");
+						return Action.DISPLAY_HELP;
+					}
+				} else if (option.startsWith("--max-age=")) {
+					try {
+						maxAge = TimeUnit.DAYS.toMillis(Long.parseLong(option.substring(10)));
+					} catch (NumberFormatException e) {
+						System.err.println("Option \"--max-age\" must be a whole number of days");
+						return Action.DISPLAY_HELP;
+					}
+				} else {
+					System.err.printf("Invalid option %s%n", option);
+					return Action.DISPLAY_HELP;
+				}
+			}
+
+			return Action.manageCache(ManageCache.Mode.PRUNE, maxSize, maxAge);
+		}
 		default:
 			System.err.printf("Invalid argument \"%s\"%n", arg);
 			return Action.DISPLAY_HELP;
 		}
 	}
 
+	/**
+	 * Removes and applies the options which may be passed anywhere and apply to every action.
+	 *
+	 * @param split the split input
+	 * @return whether the global options were parsed successfully
+	 */
+	private static boolean parseGlobalOptions(Queue<String> split) {
+		int jobs = DownloadScheduler.DEFAULT_JOBS;
+		int jobsPerHost = DownloadScheduler.DEFAULT_JOBS_PER_HOST;
+
+		for (Iterator<String> it = split.iterator(); it.hasNext(); ) {
+			String option = it.next();
+
+			if (option.equals("--offline")) {
+				Connections.setOffline(true);
+				it.remove();
+			} else if (option.startsWith("--jobs=")) {
+				jobs = parsePositiveInt("--jobs", option.substring(7));
+				it.remove();
+			} else if (option.startsWith("--jobs-per-host=")) {
+				jobsPerHost = parsePositiveInt("--jobs-per-host", option.substring(16));
+				it.remove();
+			} else if (option.startsWith("--mirror=")) {
+				@Nullable
+				String mirror = unqoute(option.substring(9));
+
+				if (mirror == null) {
+					System.err.println("Option \"--mirror\" must have value quoted at start and end of value");
+					return false;
+				}
+
+				Mirrors.addMirror(mirror);
+				it.remove();
+			}
+
+			if (jobs < 1 || jobsPerHost < 1) {
+				return false;
+			}
+		}
+
+		DownloadScheduler.setJobs(jobs, jobsPerHost);
+
+		return true;
+	}
+
+	/**
+	 * Parses a size in megabytes, or in gigabytes with a {@code G} suffix.
+	 *
+	 * @return the size in megabytes, or -1 if it is invalid
+	 */
+	private static long parseMegabytes(String value) {
+		String lower = value.trim().toLowerCase(Locale.ROOT);
+		long multiplier = 1;
+
+		if (lower.endsWith("g")) {
+			multiplier = 1024;
+			lower = lower.substring(0, lower.length() - 1);
+		} else if (lower.endsWith("m")) {
+			lower = lower.substring(0, lower.length() - 1);
+		}
+
+		try {
+			return Long.parseLong(lower) * multiplier;
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private static int parsePositiveInt(String option, String value) {
+		try {
+			int i = Integer.parseInt(value);
+
+			if (i > 0) {
+				return i;
+			}
+		} catch (NumberFormatException ignored) {
+		}
+
+		System.err.printf("Option \"%s\" must be a positive whole number%n", option);
+		return -1;
+	}
+
 	/**
 	 * Takes a string and splits it at spaces while leaving quoted segements unsplit.
 	 *
@@ -472,4 +752,71 @@ public final class CliInstaller {
 
 		return input.substring(1, input.length() - 1);
 	}
+
+	/**
+	 * Prints how long each phase of an installation took, and a live progress line while downloading
+	 * if the output is an interactive console.
+	 */
+	private static final class ProgressPrinter implements Consumer<InstallMessage> {
+		private final boolean interactive = System.console() != null;
+		private final Map<String, Long> phaseStarts = new HashMap<>();
+		private int lineLength;
+
+		@Override
+		public synchronized void accept(InstallMessage message) {
+			switch (message.type()) {
+			case PHASE_STARTED:
+				this.phaseStarts.put(message.phase(), System.nanoTime());
+				break;
+			case PHASE_FINISHED:
+				Long start = this.phaseStarts.remove(message.phase());
+
+				if (start != null) {
+					this.clearLine();
+					System.out.println(String.format(Locale.ROOT, "%s took %.2fs", message.phase(), (System.nanoTime() - start) / 1e9));
+				}
+
+				break;
+			case DOWNLOAD_PROGRESS:
+				if (this.interactive) {
+					String line = String.format("%s %s of %s, %s total at %s/s (%d queued, %d in flight)",
+							message.artifact(),
+							DownloadProgress.formatBytes(message.bytes()),
+							message.length() < 0 ? "?" : DownloadProgress.formatBytes(message.length()),
+							DownloadProgress.formatBytes(message.totalBytes()),
+							DownloadProgress.formatBytes(message.bytesPerSecond()),
+							DownloadScheduler.queueDepth(),
+							DownloadScheduler.inFlight()
+					);
+
+					this.printLine(line);
+				}
+
+				break;
+			default:
+				this.clearLine();
+			}
+		}
+
+		private void printLine(String line) {
+			StringBuilder builder = new StringBuilder("\r").append(line);
+
+			// Overwrite whatever is left of a longer previous line
+			for (int i = line.length(); i < this.lineLength; i++) {
+				builder.append(' ');
+			}
+
+			this.lineLength = line.length();
+			System.out.print(builder);
+			System.out.flush();
+		}
+
+		private void clearLine() {
+			if (this.lineLength > 0) {
+				this.printLine("");
+				System.out.print('\r');
+				this.lineLength = 0;
+			}
+		}
+	}
 }
@@ -18,10 +18,14 @@ package org.quiltmc.installer;
 
 import java.io.IOException;
 import java.net.URL;
-import java.net.URLConnection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class Connections {
 	public static final String INSTALLER_VERSION = getInstallerVersion();
+	private static volatile boolean offline;
+	private static volatile HttpTransport transport = HttpTransports.createDefault();
 
 	private static String getInstallerVersion() {
 		String version = OrnitheMeta.class.getPackage().getImplementationVersion();
@@ -32,10 +36,91 @@ public class Connections {
 		return "dev";
 	}
 
-	public static URLConnection openConnection(URL url) throws IOException {
-		URLConnection connection = url.openConnection();
-		connection.setRequestProperty("User-Agent", "Ornithe-Installer/"+INSTALLER_VERSION);
+	public static boolean isOffline() {
+		return offline;
+	}
+
+	/**
+	 * Sets whether the installer runs in offline mode.
+	 *
+	 * <p>In offline mode no connections are ever opened, everything must be resolved from
+	 * the {@link HttpCache} or from files which already exist on disk.
+	 */
+	public static void setOffline(boolean offline) {
+		Connections.offline = offline;
+	}
+
+	public static HttpTransport getTransport() {
+		return transport;
+	}
+
+	/**
+	 * Replaces the transport all requests are sent through, for example with a stand-in for testing.
+	 */
+	public static void setTransport(HttpTransport transport) {
+		Connections.transport = transport;
+	}
+
+	/**
+	 * @return the number of bytes received over the network so far, before decompression
+	 */
+	public static long bytesReceived() {
+		return HttpTransports.received();
+	}
+
+	public static HttpTransport.Response get(URL url) throws IOException {
+		return get(url, Collections.emptyMap());
+	}
+
+	/**
+	 * Sends a GET request to the given url.
+	 *
+	 * @param url the url to request
+	 * @param headers extra request headers
+	 * @return the response, which must be closed
+	 * @throws IOException if the request failed or the server returned an error status
+	 */
+	public static HttpTransport.Response get(URL url, Map<String, String> headers) throws IOException {
+		if (offline) {
+			// Fail fast rather than waiting for a connection timeout
+			throw new IOException(String.format("%s is not available in offline mode", url));
+		}
+
+		Map<String, String> allHeaders = new LinkedHashMap<>(headers);
+		allHeaders.put("User-Agent", "Ornithe-Installer/" + INSTALLER_VERSION);
+
+		// Try the mirrors first, the upstream url always comes last
+		for (Mirrors.Candidate candidate : Mirrors.candidates(url)) {
+			if (candidate.mirror == null) {
+				HttpTransport.Response response = transport.get(url, allHeaders);
+
+				if (response.statusCode() >= 400) {
+					response.close();
+					throw new IOException(String.format("Server returned HTTP %d for %s", response.statusCode(), url));
+				}
+
+				return response;
+			}
+
+			try {
+				HttpTransport.Response response = transport.get(candidate.url, allHeaders);
+
+				if (response.statusCode() < 400) {
+					candidate.mirror.succeeded();
+					return response;
+				}
+
+				response.close();
+
+				// A mirror may simply not have everything, only count errors of the mirror itself against it
+				if (response.statusCode() >= 500) {
+					candidate.mirror.failed();
+				}
+			} catch (IOException e) {
+				candidate.mirror.failed();
+			}
+		}
 
-		return connection;
+		throw new IllegalStateException("The upstream url is always a candidate");
 	}
 }
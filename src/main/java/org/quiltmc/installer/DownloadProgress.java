@@ -0,0 +1,184 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.installer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Counts the bytes downloaded for every artifact of an installation and reports them to a listener.
+ *
+ * <p>Reports are rate limited per artifact, so listeners are not flooded with an update for every buffer.
+ * Listeners may be called from several download threads at the same time.
+ */
+public final class DownloadProgress {
+	/**
+	 * Progress which is counted but never reported.
+	 */
+	public static final DownloadProgress NONE = new DownloadProgress(null);
+	private static final long REPORT_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+	@Nullable
+	private final Listener listener;
+	private final AtomicLong transferred = new AtomicLong();
+	private final long started = System.nanoTime();
+
+	public DownloadProgress(@Nullable Listener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Wraps a download stream so the bytes read from it are counted towards this progress.
+	 *
+	 * @param artifact the name of the artifact being downloaded
+	 * @param length the length of the artifact in bytes, or {@code -1} if unknown
+	 * @param stream the download stream
+	 * @return the counting stream
+	 */
+	public InputStream track(String artifact, long length, InputStream stream) {
+		return new TrackingInputStream(new Tracker(artifact, length, true), stream);
+	}
+
+	/**
+	 * Creates a tracker which counts several download streams as a single artifact, such as the many small
+	 * files which make up a larger download. Streams may be tracked from several threads at the same time.
+	 *
+	 * @param artifact the name of the artifact
+	 * @param length the total length of all streams in bytes, or {@code -1} if unknown
+	 * @return the tracker
+	 */
+	public Tracker tracker(String artifact, long length) {
+		return new Tracker(artifact, length, false);
+	}
+
+	/**
+	 * @return the number of bytes downloaded over all artifacts
+	 */
+	public long transferred() {
+		return this.transferred.get();
+	}
+
+	/**
+	 * @return the average download speed over all artifacts since this progress was created, in bytes per second
+	 */
+	public double bytesPerSecond() {
+		long elapsed = System.nanoTime() - this.started;
+
+		return elapsed <= 0 ? 0 : this.transferred.get() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+	}
+
+	public static String formatBytes(double bytes) {
+		if (bytes < 1024) {
+			return String.format(Locale.ROOT, "%.0f B", bytes);
+		} else if (bytes < 1024 * 1024) {
+			return String.format(Locale.ROOT, "%.1f KiB", bytes / 1024);
+		}
+
+		return String.format(Locale.ROOT, "%.1f MiB", bytes / (1024 * 1024));
+	}
+
+	@FunctionalInterface
+	public interface Listener {
+		/**
+		 * Called when more of an artifact has been downloaded.
+		 *
+		 * @param artifact the name of the artifact
+		 * @param bytes the number of bytes of the artifact downloaded so far
+		 * @param length the length of the artifact in bytes, or {@code -1} if unknown
+		 * @param progress the progress the artifact counts towards
+		 */
+		void update(String artifact, long bytes, long length, DownloadProgress progress);
+	}
+
+	public final class Tracker {
+		private final String artifact;
+		private final long length;
+		/**
+		 * Whether to report the end of every stream, rather than only the end of the whole artifact.
+		 */
+		private final boolean reportEachEnd;
+		private final AtomicLong bytes = new AtomicLong();
+		private final AtomicLong lastReport = new AtomicLong(System.nanoTime());
+
+		Tracker(String artifact, long length, boolean reportEachEnd) {
+			this.artifact = artifact;
+			this.length = length;
+			this.reportEachEnd = reportEachEnd;
+		}
+
+		/**
+		 * Wraps a download stream so the bytes read from it are counted towards this tracker.
+		 */
+		public InputStream track(InputStream stream) {
+			return new TrackingInputStream(this, stream);
+		}
+
+		private void count(int read) {
+			long bytes = read > 0 ? this.bytes.addAndGet(read) : this.bytes.get();
+
+			if (read > 0) {
+				DownloadProgress.this.transferred.addAndGet(read);
+			}
+
+			if (DownloadProgress.this.listener == null) {
+				return;
+			}
+
+			long now = System.nanoTime();
+			long last = this.lastReport.get();
+			// Always report the end of the download so listeners see the artifact complete
+			boolean end = read == -1 && (this.reportEachEnd || bytes >= this.length);
+
+			if (end) {
+				this.lastReport.set(now);
+			} else if (now - last < REPORT_INTERVAL || !this.lastReport.compareAndSet(last, now)) {
+				// Another thread is reporting this interval already
+				return;
+			}
+
+			DownloadProgress.this.listener.update(this.artifact, bytes, this.length, DownloadProgress.this);
+		}
+	}
+
+	private static final class TrackingInputStream extends FilterInputStream {
+		private final Tracker tracker;
+
+		TrackingInputStream(Tracker tracker, InputStream in) {
+			super(in);
+			this.tracker = tracker;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int read = super.read();
+			this.tracker.count(read == -1 ? -1 : 1);
+			return read;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+			this.tracker.count(read);
+			return read;
+		}
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.installer;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking network work with a bounded number of concurrent requests, in total and per host.
+ *
+ * <p>Unlike the common {@link java.util.concurrent.ForkJoinPool} this is not sized to the number of cores,
+ * since downloads spend nearly all of their time waiting on the network rather than the cpu.
+ *
+ * <p>Concurrency is limited by handing out permits rather than by the size of the thread pool, so callbacks
+ * which block on other downloads never starve the scheduler.
+ */
+public final class DownloadScheduler {
+	public static final int DEFAULT_JOBS = 16;
+	public static final int DEFAULT_JOBS_PER_HOST = 6;
+	private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+	private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(task -> {
+		Thread thread = new Thread(task, "Download Worker " + THREAD_COUNT.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	});
+	private static final Object LOCK = new Object();
+	// Must be linked to hand out permits to hosts in the order they were first queued
+	private static final Map<String, Queue<Runnable>> QUEUES = new LinkedHashMap<>();
+	private static final Map<String, Integer> IN_FLIGHT_BY_HOST = new HashMap<>();
+	private static int jobs = DEFAULT_JOBS;
+	private static int jobsPerHost = DEFAULT_JOBS_PER_HOST;
+	private static int queued;
+	private static int inFlight;
+
+	/**
+	 * Sets the maximum number of requests which may run at the same time.
+	 *
+	 * @param jobs the maximum number of concurrent requests in total
+	 * @param jobsPerHost the maximum number of concurrent requests to a single host
+	 */
+	public static void setJobs(int jobs, int jobsPerHost) {
+		if (jobs < 1 || jobsPerHost < 1) {
+			throw new IllegalArgumentException("There must be at least one job");
+		}
+
+		synchronized (LOCK) {
+			DownloadScheduler.jobs = jobs;
+			DownloadScheduler.jobsPerHost = jobsPerHost;
+
+			dispatch();
+		}
+	}
+
+	/**
+	 * Schedules a task which talks to the host of the given url.
+	 *
+	 * @param url the url the task will request
+	 * @param task the task
+	 * @return a future which completes with the result of the task
+	 */
+	public static <T> CompletableFuture<T> submit(String url, Supplier<T> task) {
+		String host = host(url);
+		CompletableFuture<T> future = new CompletableFuture<>();
+
+		synchronized (LOCK) {
+			QUEUES.computeIfAbsent(host, k -> new ArrayDeque<>()).add(() -> run(host, task, future));
+			queued++;
+
+			dispatch();
+		}
+
+		return future;
+	}
+
+	/**
+	 * @return the number of tasks waiting for a permit
+	 */
+	public static int queueDepth() {
+		synchronized (LOCK) {
+			return queued;
+		}
+	}
+
+	/**
+	 * @return the number of tasks currently running
+	 */
+	public static int inFlight() {
+		synchronized (LOCK) {
+			return inFlight;
+		}
+	}
+
+	private static <T> void run(String host, Supplier<T> task, CompletableFuture<T> future) {
+		T result;
+
+		try {
+			result = task.get();
+		} catch (Throwable t) {
+			release(host);
+			// Wrap the same way CompletableFuture.supplyAsync does
+			future.completeExceptionally(t instanceof CompletionException ? t : new CompletionException(t));
+			return;
+		}
+
+		// Release first so dependent stages are not counted as in flight
+		release(host);
+		future.complete(result);
+	}
+
+	private static void release(String host) {
+		synchronized (LOCK) {
+			inFlight--;
+			IN_FLIGHT_BY_HOST.merge(host, -1, (a, b) -> a + b == 0 ? null : a + b);
+
+			dispatch();
+		}
+	}
+
+	// Must be called while holding the lock
+	private static void dispatch() {
+		boolean dispatched = true;
+
+		// Go round the hosts until we run out of permits or nothing can be dispatched
+		while (dispatched && inFlight < jobs) {
+			dispatched = false;
+
+			for (Iterator<Map.Entry<String, Queue<Runnable>>> it = QUEUES.entrySet().iterator(); it.hasNext() && inFlight < jobs; ) {
+				Map.Entry<String, Queue<Runnable>> entry = it.next();
+				int hostInFlight = IN_FLIGHT_BY_HOST.getOrDefault(entry.getKey(), 0);
+
+				if (hostInFlight >= jobsPerHost) {
+					continue;
+				}
+
+				Runnable task = entry.getValue().remove();
+
+				if (entry.getValue().isEmpty()) {
+					it.remove();
+				}
+
+				IN_FLIGHT_BY_HOST.put(entry.getKey(), hostInFlight + 1);
+				queued--;
+				inFlight++;
+				dispatched = true;
+
+				EXECUTOR.execute(task);
+			}
+		}
+	}
+
+	private static String host(String url) {
+		try {
+			return new URL(url).getHost();
+		} catch (MalformedURLException e) {
+			return "";
+		}
+	}
+
+	private DownloadScheduler() {
+	}
+}
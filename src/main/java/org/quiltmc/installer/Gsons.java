@@ -71,6 +71,7 @@ public final class Gsons {
 		case BOOLEAN:
 			return reader.nextBoolean();
 		case NULL:
+			reader.nextNull();
 			return null;
 		// Unused, probably a sign of malformed json
 		case NAME:
@@ -115,6 +116,62 @@ public final class Gsons {
 		}
 	}
 
+	/**
+	 * Copies the next value of the reader to the writer token by token, without building it in memory.
+	 * Numbers are copied as written, so integers stay integers.
+	 *
+	 * @param reader the reader
+	 * @param writer the writer
+	 * @throws IOException if issues occurred while reading or writing
+	 */
+	public static void copy(JsonReader reader, JsonWriter writer) throws IOException {
+		switch (reader.peek()) {
+		case BEGIN_ARRAY:
+			reader.beginArray();
+			writer.beginArray();
+
+			while (reader.hasNext()) {
+				copy(reader, writer);
+			}
+
+			reader.endArray();
+			writer.endArray();
+			break;
+		case BEGIN_OBJECT:
+			reader.beginObject();
+			writer.beginObject();
+
+			while (reader.hasNext()) {
+				writer.name(reader.nextName());
+				copy(reader, writer);
+			}
+
+			reader.endObject();
+			writer.endObject();
+			break;
+		case STRING:
+			writer.value(reader.nextString());
+			break;
+		case NUMBER:
+			writer.value(reader.nextNumber());
+			break;
+		case BOOLEAN:
+			writer.value(reader.nextBoolean());
+			break;
+		case NULL:
+			reader.nextNull();
+			writer.nullValue();
+			break;
+		// Unused, probably a sign of malformed json
+		case NAME:
+		case END_DOCUMENT:
+		case END_ARRAY:
+		case END_OBJECT:
+		default:
+			throw new IllegalStateException();
+		}
+	}
+
 	private Gsons() {
 	}
 }
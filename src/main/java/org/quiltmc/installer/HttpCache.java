@@ -0,0 +1,423 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.installer;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.installer.util.Hashes;
+import org.quiltmc.parsers.json.JsonReader;
+import org.quiltmc.parsers.json.JsonWriter;
+
+/**
+ * A persistent on-disk cache for small http resources, such as meta endpoints and version manifests.
+ *
+ * <p>Every response is stored along with its validators ({@code ETag} and {@code Last-Modified}), so later
+ * requests for the same url are revalidated with a conditional GET and only cost a full download if the
+ * resource actually changed.
+ *
+ * <p>In {@linkplain Connections#isOffline() offline mode} cached entries are returned as is.
+ */
+public final class HttpCache {
+	private static final String DIRECTORY_PROPERTY = "ornithe.installer.cacheDir";
+	private static final String DIRECTORY_ENV = "ORNITHE_INSTALLER_CACHE_DIR";
+	private static final String BODY_EXTENSION = ".body";
+	private static final String META_EXTENSION = ".json";
+	/**
+	 * Resources captured when the installer was built, stored by host and path.
+	 */
+	private static final String SNAPSHOT_RESOURCE = "snapshot/";
+	public static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+	public static final long DEFAULT_MAX_AGE = TimeUnit.DAYS.toMillis(30);
+	/**
+	 * The cache is pruned at most once per run, the first time something new is stored.
+	 */
+	private static final AtomicBoolean PRUNED = new AtomicBoolean();
+	@Nullable
+	private static Path directory;
+
+	/**
+	 * Gets the directory the cache is stored in.
+	 *
+	 * <p>This can be overridden using the {@code ornithe.installer.cacheDir} system property
+	 * or the {@code ORNITHE_INSTALLER_CACHE_DIR} environment variable.
+	 *
+	 * @return the cache directory
+	 */
+	public static synchronized Path getDirectory() {
+		if (directory == null) {
+			String override = System.getProperty(DIRECTORY_PROPERTY, System.getenv(DIRECTORY_ENV));
+
+			if (override != null && !override.isEmpty()) {
+				directory = Paths.get(override);
+			} else {
+				directory = OsPaths.getInstallerDataDir().resolve("cache");
+			}
+		}
+
+		return directory;
+	}
+
+	public static synchronized void setDirectory(Path dir) {
+		directory = dir;
+	}
+
+	/**
+	 * Opens a stream to the resource at the given url, revalidating the cached copy if one exists.
+	 *
+	 * @param url the url of the resource
+	 * @return a stream over the full contents of the resource
+	 * @throws IOException if the resource could not be fetched
+	 */
+	public static InputStream open(URL url) throws IOException {
+		return new ByteArrayInputStream(get(url));
+	}
+
+	/**
+	 * Opens a UTF-8 reader over the resource at the given url, revalidating the cached copy if one exists.
+	 *
+	 * @param url the url of the resource
+	 * @return a reader over the full contents of the resource
+	 * @throws IOException if the resource could not be fetched
+	 */
+	public static BufferedReader openReader(URL url) throws IOException {
+		return new BufferedReader(new InputStreamReader(open(url), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Reads the cached copy of the resource at the given url without touching the network.
+	 *
+	 * @param url the url of the resource
+	 * @return the cached contents, or {@code null} if the resource has never been fetched
+	 * @throws IOException if the cached copy could not be read
+	 */
+	@Nullable
+	public static byte[] peek(URL url) throws IOException {
+		Path dir = getDirectory();
+		String key = key(url);
+
+		if (readEntry(dir.resolve(key + META_EXTENSION)) == null) {
+			return null;
+		}
+
+		try {
+			return Files.readAllBytes(dir.resolve(key + BODY_EXTENSION));
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the copy of the resource at the given url which was embedded in the installer when it was built.
+	 * This is a last resort for showing something before the resource has ever been fetched, it may be long outdated.
+	 *
+	 * @param url the url of the resource
+	 * @return the embedded contents, or {@code null} if the resource was not embedded
+	 * @throws IOException if the embedded copy could not be read
+	 */
+	@Nullable
+	public static byte[] snapshot(URL url) throws IOException {
+		try (InputStream stream = HttpCache.class.getClassLoader().getResourceAsStream(SNAPSHOT_RESOURCE + url.getHost() + url.getPath())) {
+			return stream == null ? null : readAllBytes(stream);
+		}
+	}
+
+	public static byte[] get(URL url) throws IOException {
+		Path dir = getDirectory();
+		String key = key(url);
+		Path body = dir.resolve(key + BODY_EXTENSION);
+		Path meta = dir.resolve(key + META_EXTENSION);
+
+		@Nullable
+		Entry cached = readEntry(meta);
+
+		if (Connections.isOffline()) {
+			if (cached == null || Files.notExists(body)) {
+				throw new IOException(String.format("%s is not cached and cannot be fetched in offline mode", url));
+			}
+
+			return Files.readAllBytes(body);
+		}
+
+		Map<String, String> headers = new HashMap<>();
+
+		if (cached != null) {
+			if (cached.etag != null) {
+				headers.put("If-None-Match", cached.etag);
+			}
+			if (cached.lastModified != null) {
+				headers.put("If-Modified-Since", cached.lastModified);
+			}
+		}
+
+		try (HttpTransport.Response response = Connections.get(url, headers)) {
+			if (cached != null && response.statusCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+				try {
+					byte[] data = Files.readAllBytes(body);
+					long now = System.currentTimeMillis();
+
+					writeEntry(meta, new Entry(cached.url, cached.etag, cached.lastModified, now, now, data.length));
+
+					return data;
+				} catch (NoSuchFileException e) {
+					// The body went missing from under us, fetch it again unconditionally
+					try (HttpTransport.Response full = Connections.get(url)) {
+						return get(url, body, meta, full);
+					}
+				}
+			}
+
+			return get(url, body, meta, response);
+		}
+	}
+
+	private static byte[] get(URL url, Path body, Path meta, HttpTransport.Response response) throws IOException {
+		byte[] data = readAllBytes(response.body());
+
+		long now = System.currentTimeMillis();
+		Files.createDirectories(body.getParent());
+		write(body, data);
+		writeEntry(meta, new Entry(url.toString(), response.header("ETag"), response.header("Last-Modified"), now, now, data.length));
+
+		if (PRUNED.compareAndSet(false, true)) {
+			prune(DEFAULT_MAX_SIZE, DEFAULT_MAX_AGE);
+		}
+
+		return data;
+	}
+
+	/**
+	 * Lists all entries in the cache, least recently used first.
+	 *
+	 * @return the cache entries
+	 * @throws IOException if the cache directory could not be read
+	 */
+	public static List<Entry> entries() throws IOException {
+		Path dir = getDirectory();
+		List<Entry> entries = new ArrayList<>();
+
+		if (Files.notExists(dir)) {
+			return entries;
+		}
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + META_EXTENSION)) {
+			for (Path meta : stream) {
+				@Nullable
+				Entry entry = readEntry(meta);
+
+				if (entry != null) {
+					entries.add(entry);
+				}
+			}
+		}
+
+		entries.sort(Comparator.comparingLong(Entry::lastUsed));
+
+		return entries;
+	}
+
+	/**
+	 * Removes entries which have not been used within {@code maxAge} milliseconds, and then removes the least
+	 * recently used entries until the cache takes up at most {@code maxSize} bytes.
+	 *
+	 * @param maxSize the maximum total size of the cache, in bytes
+	 * @param maxAge the maximum time since an entry was last used, in milliseconds
+	 * @return the entries which were removed
+	 * @throws IOException if there were any issues reading or deleting entries
+	 */
+	public static List<Entry> prune(long maxSize, long maxAge) throws IOException {
+		List<Entry> entries = entries();
+		List<Entry> removed = new ArrayList<>();
+		long cutoff = System.currentTimeMillis() - maxAge;
+		long size = 0;
+
+		for (Entry entry : entries) {
+			size += entry.size;
+		}
+
+		for (Entry entry : entries) {
+			if (entry.lastUsed < cutoff || size > maxSize) {
+				remove(entry);
+				removed.add(entry);
+				size -= entry.size;
+			}
+		}
+
+		return removed;
+	}
+
+	public static void remove(Entry entry) throws IOException {
+		Path dir = getDirectory();
+		String key = key(new URL(entry.url));
+
+		Files.deleteIfExists(dir.resolve(key + META_EXTENSION));
+		Files.deleteIfExists(dir.resolve(key + BODY_EXTENSION));
+	}
+
+	@Nullable
+	private static Entry readEntry(Path meta) {
+		if (Files.notExists(meta)) {
+			return null;
+		}
+
+		try (JsonReader reader = JsonReader.json(Files.newBufferedReader(meta, StandardCharsets.UTF_8))) {
+			Object read = Gsons.read(reader);
+
+			if (!(read instanceof Map)) {
+				return null;
+			}
+
+			Map<?, ?> map = (Map<?, ?>) read;
+
+			return new Entry(
+					(String) map.get("url"),
+					(String) map.get("etag"),
+					(String) map.get("lastModified"),
+					((Number) map.get("fetched")).longValue(),
+					((Number) map.get("lastUsed")).longValue(),
+					((Number) map.get("size")).longValue()
+			);
+		} catch (IOException | RuntimeException e) {
+			// A corrupt entry is treated as a cache miss, it will be overwritten
+			return null;
+		}
+	}
+
+	private static void writeEntry(Path meta, Entry entry) throws IOException {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("url", entry.url);
+
+		// Responses often only have one of the validators, a missing one is left out rather than written as null
+		if (entry.etag != null) {
+			map.put("etag", entry.etag);
+		}
+
+		if (entry.lastModified != null) {
+			map.put("lastModified", entry.lastModified);
+		}
+
+		map.put("fetched", entry.fetched);
+		map.put("lastUsed", entry.lastUsed);
+		map.put("size", entry.size);
+
+		StringWriter writer = new StringWriter();
+		Gsons.write(JsonWriter.json(writer), map);
+
+		write(meta, writer.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Writes to a temporary file first, so concurrent readers never see a partially written file.
+	 */
+	private static void write(Path path, byte[] data) throws IOException {
+		Path tmp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+
+		try {
+			Files.write(tmp, data);
+			Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	static byte[] readAllBytes(InputStream stream) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+
+		for (int length; (length = stream.read(buffer)) != -1; ) {
+			os.write(buffer, 0, length);
+		}
+
+		return os.toByteArray();
+	}
+
+	private static String key(URL url) {
+		return Hashes.toHex(Hashes.sha1().digest(url.toString().getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private HttpCache() {
+	}
+
+	public static final class Entry {
+		private final String url;
+		@Nullable
+		private final String etag;
+		@Nullable
+		private final String lastModified;
+		private final long fetched;
+		private final long lastUsed;
+		private final long size;
+
+		Entry(String url, @Nullable String etag, @Nullable String lastModified, long fetched, long lastUsed, long size) {
+			this.url = url;
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.fetched = fetched;
+			this.lastUsed = lastUsed;
+			this.size = size;
+		}
+
+		public String url() {
+			return this.url;
+		}
+
+		@Nullable
+		public String etag() {
+			return this.etag;
+		}
+
+		@Nullable
+		public String lastModified() {
+			return this.lastModified;
+		}
+
+		public long fetched() {
+			return this.fetched;
+		}
+
+		public long lastUsed() {
+			return this.lastUsed;
+		}
+
+		public long size() {
+			return this.size;
+		}
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.installer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Performs http GET requests on behalf of {@link Connections}.
+ *
+ * <p>Transports are responsible for timeouts, connection reuse and decoding compressed responses.
+ * A different transport can be installed using {@link Connections#setTransport(HttpTransport)}.
+ */
+public interface HttpTransport {
+	/**
+	 * Sends a GET request.
+	 *
+	 * <p>Unlike {@link Connections#get(URL, Map)}, error statuses are returned as a response rather than thrown.
+	 *
+	 * @param url the url to request
+	 * @param headers the request headers
+	 * @return the response, which must be closed
+	 * @throws IOException if the request could not be sent
+	 */
+	Response get(URL url, Map<String, String> headers) throws IOException;
+
+	interface Response extends Closeable {
+		int statusCode();
+
+		@Nullable
+		String header(String name);
+
+		/**
+		 * @return the length of the decoded body in bytes, or {@code -1} if unknown
+		 */
+		long contentLength();
+
+		/**
+		 * @return the decoded body
+		 * @throws IOException if the body could not be read
+		 */
+		InputStream body() throws IOException;
+
+		/**
+		 * Closes the response, leaving the connection open for reuse where possible.
+		 */
+		@Override
+		void close() throws IOException;
+	}
+}
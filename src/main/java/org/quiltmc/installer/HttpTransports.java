@@ -0,0 +1,153 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.installer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Helpers shared by the {@link HttpTransport} implementations.
+ */
+final class HttpTransports {
+	static final String ACCEPT_ENCODING = "gzip, deflate";
+	static final int CONNECT_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(10);
+	static final int READ_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(30);
+	/**
+	 * At most this much of an unread body is drained on close to keep the connection alive,
+	 * anything larger is cheaper to drop.
+	 */
+	private static final int MAX_DRAIN = 64 * 1024;
+	/**
+	 * Only available in the multi-release jar, on Java 11 and newer.
+	 */
+	private static final String HTTP_CLIENT_TRANSPORT = "org.quiltmc.installer.HttpClientTransport";
+	private static final AtomicLong RECEIVED = new AtomicLong();
+
+	/**
+	 * Creates the best transport available on this runtime.
+	 */
+	static HttpTransport createDefault() {
+		try {
+			return (HttpTransport) Class.forName(HTTP_CLIENT_TRANSPORT).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return new UrlConnectionTransport();
+		}
+	}
+
+	/**
+	 * @return the number of bytes received over the network by every transport, before decoding
+	 */
+	static long received() {
+		return RECEIVED.get();
+	}
+
+	/**
+	 * Wraps a raw response body so the bytes received are counted, and decodes it if it is compressed.
+	 *
+	 * @param contentEncoding the value of the {@code Content-Encoding} header
+	 * @param raw the body as received over the network
+	 * @return the decoded body
+	 * @throws IOException if the encoding is not supported
+	 */
+	static InputStream decode(@Nullable String contentEncoding, InputStream raw) throws IOException {
+		InputStream counted = new CountingInputStream(raw);
+
+		if (contentEncoding == null) {
+			return counted;
+		}
+
+		switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+		case "":
+		case "identity":
+			return counted;
+		case "gzip":
+		case "x-gzip":
+			return new GZIPInputStream(counted);
+		case "deflate":
+			return new InflaterInputStream(counted);
+		default:
+			throw new IOException("Unsupported content encoding " + contentEncoding);
+		}
+	}
+
+	static boolean isEncoded(@Nullable String contentEncoding) {
+		return contentEncoding != null && !contentEncoding.trim().isEmpty() && !contentEncoding.trim().equalsIgnoreCase("identity");
+	}
+
+	/**
+	 * Reads what is left of a small body and closes it, so the underlying connection can be reused.
+	 *
+	 * <p>Closing a response must not fail a request whose body was already read, so a body which cannot be
+	 * drained, such as one the caller already closed, is only closed.
+	 */
+	static void drain(@Nullable InputStream raw) {
+		if (raw == null) {
+			return;
+		}
+
+		try (InputStream stream = raw) {
+			byte[] buffer = new byte[8192];
+			int drained = 0;
+
+			for (int length; drained < MAX_DRAIN && (length = stream.read(buffer)) != -1; ) {
+				drained += length;
+				RECEIVED.addAndGet(length);
+			}
+		} catch (IOException ignored) {
+			// Such as a body the caller already closed, the connection is simply not reused
+		}
+	}
+
+	private HttpTransports() {
+	}
+
+	private static final class CountingInputStream extends FilterInputStream {
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int read = super.read();
+
+			if (read != -1) {
+				RECEIVED.incrementAndGet();
+			}
+
+			return read;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+
+			if (read > 0) {
+				RECEIVED.addAndGet(read);
+			}
+
+			return read;
+		}
+	}
+}
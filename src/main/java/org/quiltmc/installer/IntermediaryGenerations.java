@@ -16,32 +16,109 @@
 
 package org.quiltmc.installer;
 
+import java.io.IOException;
+import java.util.OptionalInt;
+import java.util.concurrent.CompletableFuture;
+
+import org.jetbrains.annotations.Nullable;
 import org.quiltmc.installer.OrnitheMeta.Endpoint;
 import org.quiltmc.installer.util.Sets;
 
-public class IntermediaryGenerations {
+/**
+ * The latest and stable intermediary generations.
+ *
+ * <p>The generations are looked up once per run. If they were fetched by an earlier run, that copy is used
+ * straight away and the lookup is refreshed in the background, so nothing waits on the network for them.
+ */
+public final class IntermediaryGenerations {
+	@Nullable
+	private static CompletableFuture<IntermediaryGenerations> future;
 
-	static {
-		try {
+	private final int latest;
+	private final int stable;
+
+	private IntermediaryGenerations(int[] gens) {
+		this.latest = gens[0];
+		this.stable = gens[1];
+	}
+
+	/**
+	 * @return a future containing the intermediary generations
+	 */
+	public static synchronized CompletableFuture<IntermediaryGenerations> get() {
+		// Retry the lookup if it failed before
+		if (future == null || future.isCompletedExceptionally()) {
 			Endpoint<int[]> endpoint = OrnitheMeta.intermediaryGenerationsEndpoint();
-			OrnitheMeta meta = OrnitheMeta.create(OrnitheMeta.ORNITHE_META_URL, Sets.of(endpoint)).get();
-			int[] gens = meta.getEndpoint(endpoint);
+			CompletableFuture<IntermediaryGenerations> fetch = OrnitheMeta.create(OrnitheMeta.ORNITHE_META_URL, Sets.of(endpoint))
+					.thenApply(meta -> new IntermediaryGenerations(meta.getEndpoint(endpoint)));
+
+			@Nullable
+			int[] cached = null;
+
+			try {
+				cached = OrnitheMeta.peek(OrnitheMeta.ORNITHE_META_URL, endpoint);
+			} catch (IOException | RuntimeException ignored) {
+				// A corrupt cache entry is the same as not having one
+			}
+
+			if (cached != null) {
+				future = CompletableFuture.completedFuture(new IntermediaryGenerations(cached));
 
-			latest = gens[0];
-			stable = gens[1];
-		} catch (Exception e) {
-			throw new RuntimeException("unable to fetch latest and stable intermediary generations", e);
+				fetch.thenAccept(gens -> {
+					synchronized (IntermediaryGenerations.class) {
+						future = CompletableFuture.completedFuture(gens);
+					}
+				}).exceptionally(e -> null); // Keep using the cached generations
+			} else {
+				future = fetch;
+			}
 		}
+
+		return future;
+	}
+
+	/**
+	 * Checks that the given intermediary generation exists.
+	 *
+	 * <p>If the generations cannot be looked up the generation is assumed to be valid, since
+	 * requests for it will fail on their own.
+	 *
+	 * @param intermediaryGen the intermediary generation, or empty for the default generation
+	 * @return a future which completes exceptionally with an {@link IllegalArgumentException} if the generation does not exist
+	 */
+	public static CompletableFuture<Void> validate(OptionalInt intermediaryGen) {
+		if (!intermediaryGen.isPresent()) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		int gen = intermediaryGen.getAsInt();
+
+		return get().handle((gens, e) -> {
+			if (gens != null && (gen < 1 || gen > gens.latest())) {
+				throw new IllegalArgumentException(String.format("Intermediary generation %d is not valid! Value must be between 1 and %d.", gen, gens.latest()));
+			}
+
+			return null;
+		});
 	}
 
-	private static int latest;
-	private static int stable;
+	/**
+	 * Gets the given intermediary generation, or the stable generation if none was given.
+	 *
+	 * <p>This only blocks if the generations have never been looked up before.
+	 *
+	 * @param intermediaryGen the intermediary generation, or empty for the default generation
+	 * @return the generation
+	 */
+	public static int orStable(OptionalInt intermediaryGen) {
+		return intermediaryGen.isPresent() ? intermediaryGen.getAsInt() : get().join().stable();
+	}
 
-	public static int latest() {
-		return latest;
+	public int latest() {
+		return this.latest;
 	}
 
-	public static int stable() {
-		return stable;
+	public int stable() {
+		return this.stable;
 	}
 }
@@ -21,25 +21,25 @@ import org.quiltmc.installer.util.Maps;
 import org.quiltmc.parsers.json.JsonReader;
 import org.quiltmc.parsers.json.JsonWriter;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.StringWriter;
 import java.io.UncheckedIOException;
 import java.net.URL;
-import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 public final class LaunchJson {
+	private static final Map<String, CompletableFuture<Map<String, Object>>> VANILLA_JSONS = new ConcurrentHashMap<>();
 
 	@SuppressWarnings("unchecked")
-	public static CompletableFuture<String> getMmcJson(VersionManifest.Version gameVersion, OptionalInt intermediaryGen, Intermediary intermediary, LoaderType loaderType, String loaderVersion){
-		return LaunchJson.get(gameVersion).thenCombine(LaunchJson.get(GameSide.CLIENT, gameVersion, intermediaryGen, intermediary, loaderType, loaderVersion),
-				(vanillaJson, moddedJson) -> {
+	public static CompletableFuture<String> getMmcJson(VersionManifest.Version gameVersion, OptionalInt intermediaryGen, Intermediary intermediary, LoaderType loaderType, String loaderVersion, LWJGL lwjgl){
+		return LaunchJson.getVanilla(gameVersion).thenCombine(LaunchJson.get(GameSide.CLIENT, gameVersion, intermediaryGen, intermediary, loaderType, loaderVersion),
+				(vanillaMap, moddedJson) -> {
 					try {
-						Map<String, Object> vanillaMap = (Map<String, Object>) Gsons.read(JsonReader.json(vanillaJson));
 						Map<String, Object> moddedMap = (Map<String, Object>) Gsons.read(JsonReader.json(moddedJson));
 
 						String clientName = "com.mojang:minecraft:" + gameVersion.id() + ":client";
@@ -52,8 +52,9 @@ public final class LaunchJson {
 						);
 
 						// remove lwjgl as it is handled separately by the pack generator
-						List<Map<String, String>> vanillaLibraries = (List<Map<String, String>>) vanillaMap.get("libraries");
-						vanillaLibraries.removeIf(lib -> lib.get("name").contains("org.lwjgl"));
+						List<Map<String, String>> vanillaLibraries = ((List<Map<String, String>>) vanillaMap.get("libraries")).stream()
+								.filter(lib -> !lib.get("name").contains("org.lwjgl"))
+								.collect(Collectors.toList());
 
 						List<String> traits = new ArrayList<>();
 						if (((String) vanillaMap.get("mainClass")).contains("launchwrapper")) {
@@ -95,7 +96,7 @@ public final class LaunchJson {
 						Gsons.write(
 								JsonWriter.json(writer),
 								buildPackJsonMap(
-										vanillaMap, vanillaLibraries, minecraftArguments, traits, jvmArguments, mainJar, gameVersion.id()
+										vanillaMap, vanillaLibraries, minecraftArguments, traits, jvmArguments, mainJar, gameVersion.id(), lwjgl
 								)
 						);
 
@@ -115,7 +116,8 @@ public final class LaunchJson {
 			List<String> traits,
 			List<Object> jvmArguments,
 			Map<String, Object> mainJar,
-			String gameVersion
+			String gameVersion,
+			LWJGL lwjgl
 	){
 		Map<String, Object> moddedJsonMap = new LinkedHashMap<>();
 
@@ -138,8 +140,8 @@ public final class LaunchJson {
 		moddedJsonMap.put("releaseTime", vanilaMap.get("releaseTime"));
 		moddedJsonMap.put("requires", Lists.of(
 				Maps.of(
-						"suggests", "${lwjgl_version}",
-						"uid", "${lwjgl_uid}"
+						"suggests", lwjgl.getVersion(),
+						"uid", lwjgl.getUid()
 				)
 		));
 		moddedJsonMap.put("type", vanilaMap.get("type"));
@@ -153,30 +155,76 @@ public final class LaunchJson {
 	 * @return the launch json for a vanilla mc instance
 	 */
 	public static CompletableFuture<String> get(VersionManifest.Version gameVersion) {
-		return CompletableFuture.supplyAsync(() -> {
-			try {
-				URL url = new URL(gameVersion.url());
-				URLConnection connection = Connections.openConnection(url);
-				Map<String, Object> map;
+		return getVanilla(gameVersion).thenApply(vanillaMap -> {
+			Map<String, Object> map = new LinkedHashMap<>(vanillaMap);
 
-				try (InputStreamReader input = new InputStreamReader(connection.getInputStream())) {
-					//noinspection unchecked
-					map = (Map<String, Object>) Gsons.read(JsonReader.json(input));
-				}
+			// add the -vanilla suffix to the vanilla json 'cause
+			// we use a different version manifest than mojang and
+			// some version ids can differ from the official ones
+			map.put("id", String.format("%s-vanilla", gameVersion.id()));
 
-				// add the -vanilla suffix to the vanilla json 'cause
-				// we use a different version manifest than mojang and
-				// some version ids can differ from the official ones
-				map.put("id", String.format("%s-vanilla", gameVersion.id()));
+			StringWriter writer = new StringWriter();
 
-				StringWriter writer = new StringWriter();
+			try {
 				Gsons.write(JsonWriter.json(writer), map);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e); // Handled via .exceptionally(...)
+			}
+
+			return writer.toString();
+		});
+	}
+
+	/**
+	 * Gets the version json of a Minecraft version, as published by Mojang.
+	 *
+	 * <p>The json is downloaded at most once per run, no matter how many callers ask for it. Since it
+	 * is shared, the returned map and everything in it is unmodifiable.
+	 *
+	 * @return the parsed version json
+	 */
+	public static CompletableFuture<Map<String, Object>> getVanilla(VersionManifest.Version gameVersion) {
+		String rawUrl = gameVersion.url();
+		CompletableFuture<Map<String, Object>> future = VANILLA_JSONS.computeIfAbsent(rawUrl, k -> DownloadScheduler.submit(rawUrl, () -> {
+			try (Reader input = HttpCache.openReader(new URL(rawUrl))) {
+				Object read = Gsons.read(JsonReader.json(input));
+
+				if (!(read instanceof Map)) {
+					throw new IllegalStateException(String.format("launchermeta for %s is not an object!", gameVersion.id()));
+				}
 
-				return writer.toString();
+				//noinspection unchecked
+				return (Map<String, Object>) freeze(read);
 			} catch (IOException e) {
 				throw new UncheckedIOException(e); // Handled via .exceptionally(...)
 			}
+		}));
+
+		// Failures are not kept around, the next caller tries again
+		future.whenComplete((json, e) -> {
+			if (e != null) {
+				VANILLA_JSONS.remove(rawUrl, future);
+			}
 		});
+
+		return future;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object freeze(Object json) {
+		if (json instanceof Map) {
+			Map<String, Object> map = (Map<String, Object>) json;
+			map.replaceAll((key, value) -> freeze(value));
+
+			return Collections.unmodifiableMap(map);
+		} else if (json instanceof List) {
+			List<Object> list = (List<Object>) json;
+			list.replaceAll(LaunchJson::freeze);
+
+			return Collections.unmodifiableList(list);
+		}
+
+		return json;
 	}
 
 	/**
@@ -185,29 +233,19 @@ public final class LaunchJson {
 	public static CompletableFuture<String> get(GameSide side, VersionManifest.Version gameVersion, OptionalInt intermediaryGen, Intermediary intermediary, LoaderType loaderType, String loaderVersion) {
 		String rawUrl = OrnitheMeta.ORNITHE_META_URL + OrnitheMeta.launchJsonEndpointPath(side, loaderType, loaderVersion, intermediaryGen, intermediary);
 
-		return CompletableFuture.supplyAsync(() -> {
+		// we apply the library upgrades only to the Ornithe instance, not the Vanilla instance
+		OrnitheMeta.Endpoint<List<Map<String, String>>> libraryUpgradesEndpoint = OrnitheMeta.libraryUpgradesEndpoint(intermediaryGen, gameVersion.id());
+
+		return DownloadScheduler.submit(rawUrl, () -> {
 			try {
 				URL url = new URL(rawUrl);
-				URLConnection connection = Connections.openConnection(url);
-
-				InputStreamReader stream = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8);
 
-				try (BufferedReader reader = new BufferedReader(stream)) {
-					StringBuilder builder = new StringBuilder();
-					String line;
-
-					while ((line = reader.readLine()) != null) {
-						builder.append(line);
-						builder.append('\n');
-					}
-
-					return builder.toString();
-				}
+				return new String(HttpCache.get(url), StandardCharsets.UTF_8);
 			} catch (IOException e) {
 				throw new UncheckedIOException(e); // Handled via .exceptionally(...)
 			}
 			// TODO: HACK HACK HACK: inject intermediary instead of hashed
-		}).thenApplyAsync(raw -> {
+		}).thenCombine(OrnitheMeta.create(OrnitheMeta.ORNITHE_META_URL, Collections.singleton(libraryUpgradesEndpoint)), (raw, meta) -> {
 			Map<String, Object> map;
 			try {
 				//noinspection unchecked
@@ -220,9 +258,6 @@ public final class LaunchJson {
 				throw new RuntimeException("Read meta json is null?");
 			}
 
-			// we apply the library upgrades only to the Ornithe instance, not the Vanilla instance
-			OrnitheMeta.Endpoint<List<Map<String, String>>> libraryUpgradesEndpoint = OrnitheMeta.libraryUpgradesEndpoint(intermediaryGen, gameVersion.id());
-			OrnitheMeta meta = OrnitheMeta.create(OrnitheMeta.ORNITHE_META_URL, Collections.singleton(libraryUpgradesEndpoint)).join();
 			List<Map<String, String>> libraryUpgrades = meta.getEndpoint(libraryUpgradesEndpoint);
 
 			if (loaderType == LoaderType.QUILT) {
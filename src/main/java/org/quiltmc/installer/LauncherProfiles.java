@@ -18,27 +18,30 @@ package org.quiltmc.installer;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
-import java.util.Arrays;
 import java.util.Base64;
 import java.util.Date;
-import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.OptionalInt;
 
 import org.quiltmc.parsers.json.JsonReader;
+import org.quiltmc.parsers.json.JsonToken;
 import org.quiltmc.parsers.json.JsonWriter;
 
 public final class LauncherProfiles {
 	private static final DateFormat ISO_8601 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ");
+	private static final String PROFILE_ICON = createProfileIcon();
 
 	/**
 	 * Reads the launcher_profiles, creates or modifies the existing launcher profile and then writes the new launcher profiles.
 	 *
+	 * <p>The file is patched while it is streamed, so every other profile is copied as is without being held in memory.
+	 * The result is written next to the file and moved over it, so the launcher never sees a truncated file.
+	 *
 	 * @param gameDir the game directory
 	 * @param name the name of the profile to create or rewrite
 	 * @param gameVersion the game version
@@ -52,75 +55,122 @@ public final class LauncherProfiles {
 			throw new IllegalStateException("No launcher_profiles.json to read from");
 		}
 
-		Object launcherProfiles;
+		String newProfileName = "Ornithe Gen" + IntermediaryGenerations.orStable(intermediaryGen) + " " + loaderType.getLocalizedName() + " " + gameVersion;
+		Path tmp = Files.createTempFile(gameDir, "launcher_profiles", ".json.tmp");
 
-		try (JsonReader reader = JsonReader.json(new InputStreamReader(Files.newInputStream(launcherProfilesPath)))) {
-			launcherProfiles = Gsons.read(reader);
-		}
+		try {
+			try (JsonReader reader = JsonReader.json(Files.newBufferedReader(launcherProfilesPath, StandardCharsets.UTF_8));
+					JsonWriter writer = JsonWriter.json(Files.newBufferedWriter(tmp, StandardCharsets.UTF_8))) {
+				writer.setIndent("  "); // Prettify it
 
-		if (!(launcherProfiles instanceof Map)) {
-			throw new IllegalArgumentException("launcher_profiles.json must have a root object!");
-		}
+				if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+					throw new IllegalArgumentException("launcher_profiles.json must have a root object!");
+				}
+
+				boolean foundProfiles = false;
+
+				reader.beginObject();
+				writer.beginObject();
+
+				while (reader.hasNext()) {
+					String key = reader.nextName();
+					writer.name(key);
+
+					if (key.equals("profiles")) {
+						patchProfiles(reader, writer, newProfileName, name);
+						foundProfiles = true;
+					} else {
+						Gsons.copy(reader, writer);
+					}
+				}
+
+				if (!foundProfiles) {
+					throw new IllegalArgumentException("\"profiles\" field must be an object!");
+				}
 
-		Object rawProfiles = ((Map<?, ?>) launcherProfiles).get("profiles");
+				reader.endObject();
+				writer.endObject();
+			}
+
+			Files.move(tmp, launcherProfilesPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
 
-		if (!(rawProfiles instanceof Map)) {
+	private static void patchProfiles(JsonReader reader, JsonWriter writer, String newProfileName, String name) throws IOException {
+		if (reader.peek() != JsonToken.BEGIN_OBJECT) {
 			throw new IllegalArgumentException("\"profiles\" field must be an object!");
 		}
 
-		@SuppressWarnings("unchecked")
-		Map<String, Object> profiles = (Map<String, Object>) rawProfiles;
-		String newProfileName = "Ornithe Gen" + intermediaryGen.orElseGet(IntermediaryGenerations::stable) + " " + loaderType.getLocalizedName() + " " + gameVersion;
+		boolean found = false;
 
-		// Modify the profile
-		if (profiles.containsKey(newProfileName)) {
-			Object rawProfile = profiles.get(newProfileName);
+		reader.beginObject();
+		writer.beginObject();
 
-			if (!(rawProfile instanceof Map)) {
+		while (reader.hasNext()) {
+			String key = reader.nextName();
+			writer.name(key);
+
+			if (!key.equals(newProfileName)) {
+				Gsons.copy(reader, writer);
+				continue;
+			}
+
+			// Modify the profile
+			if (reader.peek() != JsonToken.BEGIN_OBJECT) {
 				throw new IllegalStateException(String.format("Cannot update profile of name %s because it is not an object!", newProfileName));
 			}
 
-			@SuppressWarnings("unchecked")
-			Map<String, Object> profile = (Map<String, Object>) rawProfile;
+			boolean hasVersion = false;
 
-			profile.put("lastVersionId", name);
-		} else {
-			// Create a new profile
-			Map<String, Object> profile = new LinkedHashMap<>();
+			reader.beginObject();
+			writer.beginObject();
+
+			while (reader.hasNext()) {
+				String field = reader.nextName();
+				writer.name(field);
+
+				if (field.equals("lastVersionId")) {
+					reader.skipValue();
+					writer.value(name);
+					hasVersion = true;
+				} else {
+					Gsons.copy(reader, writer);
+				}
+			}
 
-			profile.put("name", newProfileName);
-			profile.put("type", "custom");
-			profile.put("created", ISO_8601.format(new Date()));
-			profile.put("lastUsed", ISO_8601.format(new Date()));
-			profile.put("icon", createProfileIcon());
-			profile.put("lastVersionId", name);
+			if (!hasVersion) {
+				writer.name("lastVersionId").value(name);
+			}
 
-			profiles.put(newProfileName, profile);
+			reader.endObject();
+			writer.endObject();
+			found = true;
 		}
 
-		// Write out the new profiles
-		try (JsonWriter writer = JsonWriter.json(Files.newBufferedWriter(launcherProfilesPath))) {
-			writer.setIndent("  "); // Prettify it
-			Gsons.write(writer, launcherProfiles);
+		if (!found) {
+			// Create a new profile
+			String now = ISO_8601.format(new Date());
+
+			writer.name(newProfileName).beginObject()
+					.name("name").value(newProfileName)
+					.name("type").value("custom")
+					.name("created").value(now)
+					.name("lastUsed").value(now)
+					.name("icon").value(PROFILE_ICON)
+					.name("lastVersionId").value(name)
+					.endObject();
 		}
+
+		reader.endObject();
+		writer.endObject();
 	}
 
 	private static String createProfileIcon() {
 		try (InputStream stream = LauncherProfiles.class.getClassLoader().getResourceAsStream("icon.png")) {
 			if (stream != null) {
-				byte[] ret = new byte[4096];
-				int offset = 0;
-				int len;
-
-				while ((len = stream.read(ret, offset, ret.length - offset)) != -1) {
-					offset += len;
-
-					if (offset == ret.length) {
-						ret = Arrays.copyOf(ret, ret.length * 2);
-					}
-				}
-
-				return "data:image/png;base64," + Base64.getEncoder().encodeToString(Arrays.copyOf(ret, offset));
+				return "data:image/png;base64," + Base64.getEncoder().encodeToString(HttpCache.readAllBytes(stream));
 			}
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.installer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.installer.util.Hashes;
+
+/**
+ * A content-addressed store of library jars shared by every installation on this machine.
+ *
+ * <p>Each library is downloaded into the store once, stored by its SHA-1 hash and indexed by
+ * its maven coordinate. Installations are then populated by hard linking from the store, falling
+ * back to a copy if the installation lives on another file system.
+ *
+ * <p>Since every installation shares the same file through its link, objects are made read-only when they are stored,
+ * so nothing writes to them in place. Should an object still have changed, it is evicted when its hash no longer
+ * matches and downloaded again, rather than being linked into further installations.
+ *
+ * <p>Access to a coordinate is guarded by a file lock, so several installers running at the same
+ * time never download the same library twice.
+ */
+public final class LibraryStore {
+	private static final String DIRECTORY_PROPERTY = "ornithe.installer.libraryStore";
+	private static final String DIRECTORY_ENV = "ORNITHE_INSTALLER_LIBRARY_STORE";
+	/**
+	 * File locks are held by the whole JVM, so threads in this process must also be kept apart.
+	 */
+	private static final Map<String, Object> LOCKS = new ConcurrentHashMap<>();
+	@Nullable
+	private static Path directory;
+
+	/**
+	 * Gets the directory the store is kept in.
+	 *
+	 * <p>This can be overridden using the {@code ornithe.installer.libraryStore} system property
+	 * or the {@code ORNITHE_INSTALLER_LIBRARY_STORE} environment variable.
+	 *
+	 * @return the store directory
+	 */
+	public static synchronized Path getDirectory() {
+		if (directory == null) {
+			String override = System.getProperty(DIRECTORY_PROPERTY, System.getenv(DIRECTORY_ENV));
+
+			if (override != null && !override.isEmpty()) {
+				directory = Paths.get(override);
+			} else {
+				directory = OsPaths.getInstallerDataDir().resolve("libraries");
+			}
+		}
+
+		return directory;
+	}
+
+	public static synchronized void setDirectory(Path dir) {
+		directory = dir;
+	}
+
+	/**
+	 * Places the library with the given maven coordinate at the target path, downloading it into the store
+	 * first if it is not already there.
+	 *
+	 * @param name the maven coordinate of the library
+	 * @param mavenUrl the url of the maven repository hosting the library
+	 * @param sha1 the expected SHA-1 hash of the library, or {@code null} if unknown
+	 * @param target the path to place the library at
+	 * @param progress the progress to count the download towards
+	 * @throws IOException if the library could not be downloaded or placed
+	 */
+	public static void materialize(String name, String mavenUrl, @Nullable String sha1, Path target, DownloadProgress progress) throws IOException {
+		Path object = fetch(name, mavenUrl, sha1, progress);
+		// Objects stored before they were made read-only
+		makeReadOnly(object);
+
+		if (Files.exists(target) && Files.isSameFile(object, target)) {
+			return;
+		}
+
+		Files.createDirectories(target.getParent());
+		delete(target);
+
+		try {
+			Files.createLink(target, object);
+		} catch (UnsupportedOperationException | IOException e) {
+			// Hard links are not supported here or the target is on another file store
+			Files.copy(object, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Gets the path of the library with the given maven coordinate in the store, downloading it if needed.
+	 *
+	 * @param name the maven coordinate of the library
+	 * @param mavenUrl the url of the maven repository hosting the library
+	 * @param sha1 the expected SHA-1 hash of the library, or {@code null} if unknown
+	 * @param progress the progress to count the download towards
+	 * @return the path of the library in the store
+	 * @throws IOException if the library could not be downloaded
+	 */
+	public static Path fetch(String name, String mavenUrl, @Nullable String sha1, DownloadProgress progress) throws IOException {
+		Path dir = getDirectory();
+		String artifactPath = artifactPath(name);
+		Path index = dir.resolve("index").resolve(artifactPath + ".sha1");
+
+		@Nullable
+		Path object = lookup(dir, index, sha1);
+
+		if (object != null) {
+			return object;
+		}
+
+		if (Connections.isOffline()) {
+			throw new IOException(String.format("Library %s is not in the library store and cannot be downloaded in offline mode", name));
+		}
+
+		synchronized (LOCKS.computeIfAbsent(name, k -> new Object())) {
+			Path lockFile = dir.resolve("locks").resolve(Hashes.toHex(Hashes.sha1().digest(name.getBytes(StandardCharsets.UTF_8))) + ".lock");
+			Files.createDirectories(lockFile.getParent());
+
+			try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+					FileLock lock = channel.lock()) {
+				// Another installer may have downloaded it while we were waiting for the lock
+				object = lookup(dir, index, sha1);
+
+				if (object != null) {
+					return object;
+				}
+
+				return download(dir, index, name, mavenUrl + artifactPath, sha1, progress);
+			}
+		}
+	}
+
+	/**
+	 * Gets the SHA-1 hash the store has recorded for the library with the given maven coordinate.
+	 *
+	 * @param name the maven coordinate of the library
+	 * @return the hash, or {@code null} if the library has never been stored
+	 * @throws IOException if the index could not be read
+	 */
+	@Nullable
+	public static String knownHash(String name) throws IOException {
+		Path index = getDirectory().resolve("index").resolve(artifactPath(name) + ".sha1");
+
+		if (Files.notExists(index)) {
+			return null;
+		}
+
+		return new String(Files.readAllBytes(index), StandardCharsets.UTF_8).trim();
+	}
+
+	@Nullable
+	private static Path lookup(Path dir, Path index, @Nullable String sha1) throws IOException {
+		if (Files.notExists(index)) {
+			return null;
+		}
+
+		String hash = new String(Files.readAllBytes(index), StandardCharsets.UTF_8).trim();
+
+		if (sha1 != null && !sha1.equalsIgnoreCase(hash)) {
+			// The library was republished under the same coordinate, store the new one
+			return null;
+		}
+
+		Path object = objectPath(dir, hash);
+
+		if (Files.notExists(object)) {
+			return null;
+		}
+
+		if (!hash.equalsIgnoreCase(Hashes.sha1(object))) {
+			// Written to through one of its links, which must not spread to any more installations
+			delete(object);
+			Files.deleteIfExists(index);
+			return null;
+		}
+
+		return object;
+	}
+
+	private static Path download(Path dir, Path index, String name, String rawUrl, @Nullable String sha1, DownloadProgress progress) throws IOException {
+		Path tmpDir = dir.resolve("tmp");
+		Files.createDirectories(tmpDir);
+		Path tmp = Files.createTempFile(tmpDir, "library", ".jar");
+
+		try {
+			MessageDigest digest = Hashes.sha1();
+			try (HttpTransport.Response response = Connections.get(new URL(rawUrl));
+					InputStream stream = new DigestInputStream(progress.track(name, response.contentLength(), response.body()), digest)) {
+				Files.copy(stream, tmp, StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			// The hash is computed while downloading, so verifying it needs no second pass over the file
+			String hash = Hashes.toHex(digest.digest());
+
+			if (sha1 != null && !sha1.equalsIgnoreCase(hash)) {
+				throw new IOException(String.format("Library %s from %s has hash %s, expected %s", name, rawUrl, hash, sha1));
+			}
+
+			Path object = objectPath(dir, hash);
+			Files.createDirectories(object.getParent());
+			makeReadOnly(tmp);
+
+			try {
+				Files.move(tmp, object, StandardCopyOption.ATOMIC_MOVE);
+			} catch (FileAlreadyExistsException ignored) {
+				// Identical content is already stored under another coordinate
+			}
+
+			Files.createDirectories(index.getParent());
+			Path tmpIndex = Files.createTempFile(tmpDir, "index", ".sha1");
+			Files.write(tmpIndex, hash.getBytes(StandardCharsets.UTF_8));
+			Files.move(tmpIndex, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+			return object;
+		} finally {
+			delete(tmp);
+		}
+	}
+
+	private static void makeReadOnly(Path path) {
+		// Best effort, the store still verifies objects before using them
+		path.toFile().setWritable(false, false);
+	}
+
+	/**
+	 * Deletes a file, which may be a read-only object or a link to one. Windows refuses to delete read-only files.
+	 */
+	private static void delete(Path path) throws IOException {
+		try {
+			Files.deleteIfExists(path);
+		} catch (AccessDeniedException e) {
+			path.toFile().setWritable(true);
+			Files.delete(path);
+		}
+	}
+
+	private static Path objectPath(Path dir, String hash) {
+		return dir.resolve("objects").resolve(hash.substring(0, 2)).resolve(hash);
+	}
+
+	/**
+	 * Converts a maven coordinate into the path of its jar relative to the root of a maven repository.
+	 *
+	 * @param artifactNotation the maven coordinate, in the form {@code group:name:version} or {@code group:name:version:classifier}
+	 * @return the relative path of the artifact
+	 */
+	public static String artifactPath(String artifactNotation) {
+		String[] parts = artifactNotation.split(":", 4);
+		String path = parts[0].replace(".", "/") + // Group
+				"/" + parts[1] +									// Artifact name
+				"/" + parts[2] +									// Version
+				"/" + parts[1] +
+				"-" + parts[2] +
+				(parts.length > 3 ? "-" + parts[3] : "") +			// Classifier
+				".jar";												// Artifact
+		return path;
+	}
+
+	private LibraryStore() {
+	}
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.installer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Mirrors which are tried before the upstream hosts for every request.
+ *
+ * <p>Mirrors come from the {@code --mirror} option, the {@code ORNITHE_INSTALLER_MIRRORS} environment variable
+ * (separated by commas or whitespace) and the {@code mirrors.txt} file in the installer data directory (one per line).
+ * A mirror is either:
+ * <ul>
+ *     <li>a base url, such as {@code http://localhost:8080}, serving the files of every host under a directory
+ *     named after that host, such as {@code http://localhost:8080/meta.ornithemc.net/v3/versions/...};</li>
+ *     <li>or a pair {@code <upstream>=<mirror>}, where urls starting with the upstream prefix are requested
+ *     from the mirror prefix instead.</li>
+ * </ul>
+ *
+ * <p>All mirrors are probed at the same time when they are first needed, and then tried fastest first.
+ * A mirror which keeps failing is skipped for a while, and requests fail over to the next mirror or the upstream host.
+ */
+public final class Mirrors {
+	private static final String MIRRORS_ENV = "ORNITHE_INSTALLER_MIRRORS";
+	private static final String MIRRORS_FILE = "mirrors.txt";
+	private static final long PROBE_TIMEOUT = TimeUnit.SECONDS.toMillis(5);
+	private static final ExecutorService PROBE_EXECUTOR = Executors.newCachedThreadPool(task -> {
+		Thread thread = new Thread(task, "Mirror Probe");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private static final List<String> EXTRA_MIRRORS = new ArrayList<>();
+	@Nullable
+	private static volatile List<Mirror> mirrors;
+
+	/**
+	 * Adds a mirror in addition to the configured ones. Must be called before the first request.
+	 *
+	 * @param spec the mirror, see the class documentation for the format
+	 */
+	public static synchronized void addMirror(String spec) {
+		EXTRA_MIRRORS.add(spec);
+		mirrors = null;
+	}
+
+	/**
+	 * Gets the mirrors, probing them first if this is the first time they are needed.
+	 *
+	 * @return the mirrors, fastest first
+	 */
+	public static List<Mirror> get() {
+		@Nullable
+		List<Mirror> ret = mirrors;
+
+		if (ret == null) {
+			synchronized (Mirrors.class) {
+				ret = mirrors;
+
+				if (ret == null) {
+					mirrors = ret = Collections.unmodifiableList(probe(load()));
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Lists the urls to try for a request, in order: every available mirror which serves the url, then the url itself.
+	 *
+	 * @param url the upstream url
+	 * @return the urls to try, along with the mirror serving them or {@code null} for the upstream url
+	 */
+	static List<Candidate> candidates(URL url) {
+		List<Mirror> mirrors = get();
+
+		if (mirrors.isEmpty()) {
+			return Collections.singletonList(new Candidate(url, null));
+		}
+
+		List<Candidate> candidates = new ArrayList<>();
+		long now = System.currentTimeMillis();
+
+		for (Mirror mirror : mirrors) {
+			@Nullable
+			URL rewritten = mirror.rewrite(url);
+
+			if (rewritten != null && mirror.isAvailable(now)) {
+				candidates.add(new Candidate(rewritten, mirror));
+			}
+		}
+
+		candidates.add(new Candidate(url, null));
+
+		return candidates;
+	}
+
+	private static List<Mirror> load() {
+		List<String> specs = new ArrayList<>(EXTRA_MIRRORS);
+		@Nullable
+		String env = System.getenv(MIRRORS_ENV);
+
+		if (env != null) {
+			Collections.addAll(specs, env.split("[,\\s]+"));
+		}
+
+		Path file = OsPaths.getInstallerDataDir().resolve(MIRRORS_FILE);
+
+		if (Files.exists(file)) {
+			try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+				String line;
+
+				while ((line = reader.readLine()) != null) {
+					// Drop comments
+					int pos = line.indexOf('#');
+
+					if (pos >= 0) {
+						line = line.substring(0, pos);
+					}
+
+					specs.add(line);
+				}
+			} catch (IOException e) {
+				System.err.println("Failed to read mirrors from " + file + ": " + e);
+			}
+		}
+
+		List<Mirror> mirrors = new ArrayList<>();
+
+		for (String spec : specs) {
+			spec = spec.trim();
+
+			if (spec.isEmpty()) {
+				continue;
+			}
+
+			int separator = spec.indexOf('=');
+
+			try {
+				if (separator < 0) {
+					mirrors.add(new Mirror(null, new URL(trimSlash(spec))));
+				} else {
+					mirrors.add(new Mirror(trimSlash(spec.substring(0, separator).trim()), new URL(trimSlash(spec.substring(separator + 1).trim()))));
+				}
+			} catch (MalformedURLException e) {
+				System.err.println("Ignoring invalid mirror " + spec + ": " + e.getMessage());
+			}
+		}
+
+		return mirrors;
+	}
+
+	private static List<Mirror> probe(List<Mirror> mirrors) {
+		List<CompletableFuture<Void>> probes = new ArrayList<>();
+
+		for (Mirror mirror : mirrors) {
+			probes.add(CompletableFuture.runAsync(mirror::probe, PROBE_EXECUTOR));
+		}
+
+		try {
+			CompletableFuture.allOf(probes.toArray(new CompletableFuture[0])).get(PROBE_TIMEOUT, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException | TimeoutException ignored) {
+			// Mirrors which have not answered yet are simply ranked last
+		}
+
+		List<Mirror> ranked = new ArrayList<>(mirrors);
+		ranked.sort(Comparator.comparingLong(Mirror::latency));
+
+		return ranked;
+	}
+
+	private static String trimSlash(String url) {
+		return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+	}
+
+	private Mirrors() {
+	}
+
+	public static final class Mirror {
+		/**
+		 * Failures in a row after which the mirror is skipped.
+		 */
+		private static final int FAILURE_THRESHOLD = 3;
+		private static final long SKIP_MILLIS = TimeUnit.SECONDS.toMillis(30);
+		@Nullable
+		private final String upstream;
+		private final URL base;
+		private volatile long latency = Long.MAX_VALUE;
+		private int failures;
+		private long skipUntil;
+
+		Mirror(@Nullable String upstream, URL base) {
+			this.upstream = upstream;
+			this.base = base;
+		}
+
+		@Nullable
+		URL rewrite(URL url) {
+			try {
+				if (this.upstream != null) {
+					String raw = url.toString();
+
+					return raw.startsWith(this.upstream) ? new URL(this.base + raw.substring(this.upstream.length())) : null;
+				}
+
+				if (!url.getProtocol().equals("http") && !url.getProtocol().equals("https")) {
+					return null;
+				}
+
+				return new URL(this.base + "/" + url.getAuthority() + url.getFile());
+			} catch (MalformedURLException e) {
+				return null;
+			}
+		}
+
+		private void probe() {
+			long start = System.nanoTime();
+
+			try (HttpTransport.Response response = Connections.getTransport().get(this.base, Collections.emptyMap())) {
+				// Any answer short of a server error means the mirror is up, the base url itself need not exist
+				if (response.statusCode() < 500) {
+					this.latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+					return;
+				}
+			} catch (IOException ignored) {
+			}
+
+			this.failed();
+		}
+
+		synchronized boolean isAvailable(long now) {
+			return this.failures < FAILURE_THRESHOLD || now >= this.skipUntil;
+		}
+
+		synchronized void succeeded() {
+			this.failures = 0;
+		}
+
+		synchronized void failed() {
+			// Once past the threshold every further failure skips the mirror again
+			if (++this.failures >= FAILURE_THRESHOLD) {
+				this.skipUntil = System.currentTimeMillis() + SKIP_MILLIS;
+			}
+		}
+
+		/**
+		 * @return the time the mirror took to answer its probe in milliseconds, or {@link Long#MAX_VALUE} if it did not answer
+		 */
+		public long latency() {
+			return this.latency;
+		}
+
+		@Override
+		public String toString() {
+			return this.upstream == null ? this.base.toString() : this.upstream + "=" + this.base;
+		}
+	}
+
+	static final class Candidate {
+		final URL url;
+		@Nullable
+		final Mirror mirror;
+
+		Candidate(URL url, @Nullable Mirror mirror) {
+			this.url = url;
+			this.mirror = mirror;
+		}
+	}
+}
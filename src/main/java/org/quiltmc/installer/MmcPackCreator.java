@@ -17,182 +17,91 @@
 package org.quiltmc.installer;
 
 import org.quiltmc.installer.util.Maps;
+import org.quiltmc.installer.util.Template;
+import org.quiltmc.installer.util.ZipWriter;
 import org.quiltmc.parsers.json.JsonReader;
-import org.quiltmc.parsers.json.JsonToken;
 import org.quiltmc.parsers.json.JsonWriter;
 
 import java.awt.Toolkit;
 import java.awt.datatransfer.StringSelection;
 import java.io.*;
-import java.net.URL;
-import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.zip.Deflater;
 
 public class MmcPackCreator {
 	private static final String ENV_WRAPPER_COMMAND = "WrapperCommand=env __GL_THREADED_OPTIMIZATIONS=0";
+	/**
+	 * The compression level of generated packs, can be overridden with the {@code ornithe.installer.packCompressionLevel} system property.
+	 */
+	private static final int COMPRESSION_LEVEL = Integer.getInteger("ornithe.installer.packCompressionLevel", Deflater.DEFAULT_COMPRESSION);
 	private static final boolean IS_LINUX_LIKE_OS;
 
 	private static LWJGL findLwjgl(VersionManifest manifest, String gameVersion) {
 		VersionManifest.Version version = manifest.getVersion(gameVersion);
+		// The version json is shared with the launch json, so it is only downloaded once
+		Object libraries = LaunchJson.getVanilla(version).join().get("libraries");
 
-		try {
-			URL url = new URL(version.url());
-			URLConnection connection = Connections.openConnection(url);
+		if (!(libraries instanceof List)) {
+			throw new RuntimeException("libraries must be an array");
+		}
+
+		for (Object library : (List<?>) libraries) {
+			if (!(library instanceof Map)) {
+				throw new RuntimeException("library entries must all be objects");
+			}
 
-			try (JsonReader reader = JsonReader.json(new BufferedReader(new InputStreamReader(connection.getInputStream())))) {
-				LWJGL lwjgl = findLwjgl(reader);
+			String lwjglVersion = null;
+			String lwjglUrl = null;
 
-				if (lwjgl != null) {
-					return lwjgl;
+			Object name = ((Map<?, ?>) library).get("name");
+
+			if (name instanceof String) {
+				String[] maven = ((String) name).split("[:]");
+				String artifact = maven[1];
+
+				if (artifact.equals("lwjgl")) {
+					lwjglVersion = maven[2];
 				}
 			}
-		} catch (IOException e) {
-			throw new RuntimeException("issue while finding lwjgl version for Minecraft " + gameVersion, e);
-		}
 
-		throw new RuntimeException("unable to find lwjgl version for Minecraft " + gameVersion);
-	}
-
-	private static LWJGL findLwjgl(JsonReader reader) throws IOException, ParseException {
-		if (reader.peek() != JsonToken.BEGIN_OBJECT) {
-			throw new ParseException("Version Manifest was invalid type", reader);
-		}
+			Object downloads = ((Map<?, ?>) library).get("downloads");
 
-		reader.beginObject();
+			if (downloads instanceof Map) {
+				Object artifact = ((Map<?, ?>) downloads).get("artifact");
 
-		while (reader.hasNext()) {
-			switch (reader.nextName()) {
-				case "libraries":
-					if (reader.peek() != JsonToken.BEGIN_ARRAY) {
-						throw new ParseException("libraries must be an array", reader);
-					}
+				if (artifact instanceof Map) {
+					Object url = ((Map<?, ?>) artifact).get("url");
 
-					reader.beginArray();
-
-					while (reader.hasNext()) {
-						if (reader.peek() != JsonToken.BEGIN_OBJECT) {
-							throw new ParseException("library entries must all be objects", reader);
-						}
-
-						reader.beginObject();
-
-						String lwjglVersion = null;
-						String lwjglUrl = null;
-
-						while (reader.hasNext()) {
-							switch (reader.nextName()) {
-								case "name":
-									if (reader.peek() != JsonToken.STRING) {
-										throw new ParseException("library name must be a string", reader);
-									}
-
-									String name = reader.nextString();
-									String[] maven = name.split("[:]");
-									String artifact = maven[1];
-									String version = maven[2];
-
-									if (artifact.equals("lwjgl")) {
-										lwjglVersion = version;
-									}
-
-									break;
-								case "downloads":
-									if (reader.peek() != JsonToken.BEGIN_OBJECT) {
-										reader.skipValue();
-									} else {
-										reader.beginObject();
-
-										while (reader.hasNext()) {
-											switch (reader.nextName()) {
-											case "artifact":
-												if (reader.peek() != JsonToken.BEGIN_OBJECT) {
-													reader.skipValue();
-												} else {
-													reader.beginObject();
-
-													while (reader.hasNext()) {
-														switch (reader.nextName()) {
-														case "url":
-															if (reader.peek() != JsonToken.STRING) {
-																throw new ParseException("download artifact url must be a string", reader);
-															}
-
-															String url = reader.nextString();
-
-															if (url.contains("lwjgl")) {
-																lwjglUrl = url;
-															}
-
-															break;
-														default:
-															reader.skipValue();
-														}
-													}
-
-													reader.endObject();
-												}
-
-												break;
-											default:
-												reader.skipValue();
-											}
-										}
-
-										reader.endObject();
-									}
-
-									break;
-								default:
-									reader.skipValue();
-							}
-						}
-
-						reader.endObject();
-
-						if (lwjglVersion != null && lwjglUrl != null) {
-							return new LWJGL(lwjglVersion, lwjglUrl);
-						}
+					if (url instanceof String && ((String) url).contains("lwjgl")) {
+						lwjglUrl = (String) url;
 					}
+				}
+			}
 
-					reader.endArray();
-
-					break;
-				default:
-					reader.skipValue();
+			if (lwjglVersion != null && lwjglUrl != null) {
+				return new LWJGL(lwjglVersion, lwjglUrl);
 			}
 		}
 
-		reader.endObject();
-
-		return null;
-	}
-
-	private static String transformPackJson(String examplePackJson, String gameVersion, LoaderType type, String loaderVersion, LWJGL lwjgl, String intermediaryVersion) {
-		return examplePackJson
-				.replaceAll("\\$\\{mc_version}", gameVersion)
-				.replaceAll("\\$\\{intermediary_ver}", intermediaryVersion)
-				.replaceAll("\\$\\{loader_version}", loaderVersion)
-				.replaceAll("\\$\\{loader_name}", type.getLocalizedName() + " Loader")
-				.replaceAll("\\$\\{loader_uid}", type.getMavenUid())
-				.replaceAll("\\$\\{lwjgl_version}", lwjgl.getVersion())
-				.replaceAll("\\$\\{lwjgl_major_ver}", lwjgl.getMajorVersion())
-				.replaceAll("\\$\\{lwjgl_uid}", lwjgl.getUid());
+		throw new RuntimeException("unable to find lwjgl version for Minecraft " + gameVersion);
 	}
 
-	private static String transformMinecraftJson(String minecraftPatchString, LWJGL lwjgl) {
-		return minecraftPatchString
-				.replaceAll("\\$\\{lwjgl_version}", lwjgl.getVersion())
-				.replaceAll("\\$\\{lwjgl_uid}", lwjgl.getUid());
+	private static String transformPackJson(Template examplePackJson, String gameVersion, LoaderType type, String loaderVersion, LWJGL lwjgl, String intermediaryVersion) {
+		return examplePackJson.render(Maps.of(
+				"mc_version", gameVersion,
+				"intermediary_ver", intermediaryVersion,
+				"loader_version", loaderVersion,
+				"loader_name", type.getLocalizedName() + " Loader",
+				"loader_uid", type.getMavenUid(),
+				"lwjgl_version", lwjgl.getVersion(),
+				"lwjgl_major_ver", lwjgl.getMajorVersion(),
+				"lwjgl_uid", lwjgl.getUid()
+		));
 	}
 
-	private static String addLibraryUpgrades(Path instanceZipRoot, String gameVersion, LoaderType loaderType, String loaderVersion, OptionalInt intermediaryGen, Intermediary intermediary, String packJson) throws IOException {
+	private static String addLibraryUpgrades(ZipWriter zip, String gameVersion, LoaderType loaderType, String loaderVersion, OptionalInt intermediaryGen, Intermediary intermediary, String packJson) throws IOException {
 		String patch = "{\"formatVersion\": 1, " +
 				"\"libraries\": " +
 				"[{\"name\": \"%s\"," +
@@ -219,7 +128,7 @@ public class MmcPackCreator {
 			String libName = name.substring(name.indexOf(':')+1, name.lastIndexOf(':'));
 			String version = name.substring(name.lastIndexOf(':')+1);
 
-			Files.write(instanceZipRoot.resolve("patches").resolve(uid + ".json"),
+			zip.write("patches/" + uid + ".json",
 					String.format(patch, name, url, libName, uid, version).getBytes(StandardCharsets.UTF_8));
 			components.add(Maps.of(
 				"cachedName", libName,
@@ -254,60 +163,53 @@ public class MmcPackCreator {
 
 		try {
 			LWJGL lwjgl = findLwjgl(manifest, gameVersion);
+			int generation = IntermediaryGenerations.orStable(intermediaryGen);
 
 			String transformedPackJson = transformPackJson(
-					readResource(examplePackDir, packJsonPath), gameVersion, loaderType, loaderVersion, lwjgl, intermediaryVersion
-			);
-			String transformedIntermediaryJson = readResource(examplePackDir, intermediaryJsonPath)
-					.replaceAll("\\$\\{mc_version}", gameVersion)
-					.replaceAll("\\$\\{intermediary_ver}", intermediaryVersion)
-					.replaceAll("\\$\\{intermediary_maven}", intermediaryArtifact);
-
-			String transformedLwjglJson = readResource(examplePackDir, lwjglJsonPath)
-					.replaceAll("\\$\\{lwjgl_version}", lwjgl.getVersion())
-					.replaceAll("\\$\\{lwjgl_major_ver}", lwjgl.getMajorVersion())
-					.replaceAll("\\$\\{lwjgl_uid}", lwjgl.getUid());;
-
-			String transformedInstanceCfg = readResource(examplePackDir, instanceCfgPath)
-					.replaceAll("\\$\\{intermediary_generation}", String.valueOf(intermediaryGen.orElseGet(IntermediaryGenerations::stable)))
-					.replaceAll("\\$\\{loader_type}", loaderType.getLocalizedName())
-					.replaceAll("\\$\\{mc_version}", gameVersion);
-
-			String transformedMinecraftJson = transformMinecraftJson(
-					LaunchJson.getMmcJson(version, intermediaryGen, intermediary, loaderType, loaderVersion).join(), lwjgl
+					template(examplePackDir, packJsonPath), gameVersion, loaderType, loaderVersion, lwjgl, intermediaryVersion
 			);
+			String transformedIntermediaryJson = template(examplePackDir, intermediaryJsonPath).render(Maps.of(
+					"mc_version", gameVersion,
+					"intermediary_ver", intermediaryVersion,
+					"intermediary_maven", intermediaryArtifact
+			));
+
+			String transformedLwjglJson = template(examplePackDir, lwjglJsonPath).render(Maps.of(
+					"lwjgl_version", lwjgl.getVersion(),
+					"lwjgl_major_ver", lwjgl.getMajorVersion(),
+					"lwjgl_uid", lwjgl.getUid()
+			));
+
+			String transformedInstanceCfg = template(examplePackDir, instanceCfgPath).render(Maps.of(
+					"intermediary_generation", String.valueOf(generation),
+					"loader_type", loaderType.getLocalizedName(),
+					"mc_version", gameVersion
+			));
+
+			// The patch carries the launcher's own ${...} game arguments, so it must not be rendered as a template
+			String minecraftJson = LaunchJson.getMmcJson(version, intermediaryGen, intermediary, loaderType, loaderVersion, lwjgl).join();
 
 			if (IS_LINUX_LIKE_OS) {
 				transformedInstanceCfg += "\n" + "OverrideCommands=true" + "\n" + ENV_WRAPPER_COMMAND;
 			}
 
-			Path zipFile = outPutDir.resolve("Ornithe Gen" + intermediaryGen.orElseGet(IntermediaryGenerations::stable) + " " + loaderType.getLocalizedName() + " " + gameVersion + ".zip");
-			Files.deleteIfExists(zipFile);
-
-			// This is a god awful workaround, because paths can't be cleanly converted to URIs in j8, and for some reason, you can't pass parameters into newFileSystem with a path argument.
-			// Thanks Java :)
-			ZipOutputStream dummyZipOutputStream = new ZipOutputStream(Files.newOutputStream(zipFile.toFile().toPath()));
-			// I need to put an entry inside, or it creates a 0-byte file, which filesystem doesn't like
-			dummyZipOutputStream.putNextEntry(new ZipEntry("mmc-pack.json"));
-			dummyZipOutputStream.write("if you see this, this didn't work".getBytes(StandardCharsets.UTF_8));
-			dummyZipOutputStream.closeEntry();
-			dummyZipOutputStream.close();
-			// End god awful workaround
-
-			// And now we load that dummy zip as a filesystem and actually make it real.
-			try (FileSystem fs = FileSystems.newFileSystem(zipFile, (ClassLoader) null)) {
-				Files.copy(MmcPackCreator.class.getResourceAsStream(examplePackDir + "/" + iconPath), fs.getPath(iconPath));
-				Files.write(fs.getPath(instanceCfgPath), transformedInstanceCfg.getBytes(StandardCharsets.UTF_8));
-				Files.createDirectory(fs.getPath("patches"));
-				Files.write(fs.getPath(intermediaryJsonPath), transformedIntermediaryJson.getBytes(StandardCharsets.UTF_8));
+			Path zipFile = outPutDir.resolve("Ornithe Gen" + generation + " " + loaderType.getLocalizedName() + " " + gameVersion + ".zip");
+
+			// Every entry is streamed straight into the archive, which only replaces the old pack once complete
+			try (ZipWriter zip = new ZipWriter(zipFile, COMPRESSION_LEVEL)) {
+				zip.write(iconPath, readResourceBytes(examplePackDir, iconPath));
+				zip.write(instanceCfgPath, transformedInstanceCfg.getBytes(StandardCharsets.UTF_8));
+				zip.writeDirectory("patches");
+				zip.write(intermediaryJsonPath, transformedIntermediaryJson.getBytes(StandardCharsets.UTF_8));
 				if (lwjgl.isCustom()) {
-					Files.write(fs.getPath(lwjglJsonPath), transformedLwjglJson.getBytes(StandardCharsets.UTF_8));
+					zip.write(lwjglJsonPath, transformedLwjglJson.getBytes(StandardCharsets.UTF_8));
 				}
-				Files.write(fs.getPath(minecraftPatchPath), transformedMinecraftJson.getBytes(StandardCharsets.UTF_8));
-				String packJsonWithLibraries = addLibraryUpgrades(fs.getPath("/"), gameVersion,
+				zip.write(minecraftPatchPath, minecraftJson.getBytes(StandardCharsets.UTF_8));
+				String packJsonWithLibraries = addLibraryUpgrades(zip, gameVersion,
 						loaderType, loaderVersion, intermediaryGen, intermediary, transformedPackJson);
 
-				Files.write(fs.getPath(packJsonPath), packJsonWithLibraries.getBytes(StandardCharsets.UTF_8));
+				zip.write(packJsonPath, packJsonWithLibraries.getBytes(StandardCharsets.UTF_8));
+				zip.commit();
 			}
 
 			if (copyProfilePath) {
@@ -319,14 +221,19 @@ public class MmcPackCreator {
 		}
 	}
 
-	private static String readResource(String dir, String path) throws IOException {
-		InputStream resource = MmcPackCreator.class.getResourceAsStream(String.format("%s/%s", dir, path));
-		ByteArrayOutputStream os = new ByteArrayOutputStream();
-		byte[] buffer = new byte[1024];
-		for (int length; (length = resource.read(buffer)) != -1; ) {
-			os.write(buffer, 0, length);
+	private static Template template(String dir, String path) {
+		return Template.resource(String.format("%s/%s", dir, path));
+	}
+
+	private static byte[] readResourceBytes(String dir, String path) throws IOException {
+		try (InputStream resource = MmcPackCreator.class.getResourceAsStream(String.format("%s/%s", dir, path))) {
+			ByteArrayOutputStream os = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			for (int length; (length = resource.read(buffer)) != -1; ) {
+				os.write(buffer, 0, length);
+			}
+			return os.toByteArray();
 		}
-		return os.toString(StandardCharsets.UTF_8.name());
 	}
 
 	static {
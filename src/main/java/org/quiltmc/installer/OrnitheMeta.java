@@ -16,12 +16,11 @@
 
 package org.quiltmc.installer;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.UncheckedIOException;
 import java.net.URL;
-import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -31,7 +30,9 @@ import java.util.Objects;
 import java.util.OptionalInt;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.jetbrains.annotations.Nullable;
 import org.quiltmc.parsers.json.JsonReader;
 import org.quiltmc.parsers.json.JsonToken;
 
@@ -172,28 +173,18 @@ public final class OrnitheMeta {
 	}
 
 	public static final String ORNITHE_META_URL = "https://meta.ornithemc.net";
-	private static final Map<String, Endpoint<?>> ENDPOINTS = new HashMap<>();
+	private static final Map<String, Endpoint<?>> ENDPOINTS = new ConcurrentHashMap<>();
+	/**
+	 * The responses of every endpoint requested this session, by url, so concurrent and later requests share one fetch.
+	 */
+	private static final Map<String, CompletableFuture<?>> RESPONSES = new ConcurrentHashMap<>();
 
 	private final Map<Endpoint<?>, Object> endpoints;
 
 	public static CompletableFuture<OrnitheMeta> create(String baseMetaUrl, Set<Endpoint<?>> endpoints) {
 		Map<Endpoint<?>, CompletableFuture<?>> futures = new HashMap<>();
 		for (Endpoint<?> endpoint : endpoints) {
-			futures.put(endpoint, CompletableFuture.supplyAsync(() -> {
-				try {
-					URL url = new URL(baseMetaUrl + endpoint.endpointPath);
-
-					URLConnection connection = Connections.openConnection(url);
-
-					InputStreamReader stream = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8);
-
-					try (JsonReader reader = JsonReader.json(new BufferedReader(stream))) {
-						return endpoint.deserializer.apply(reader);
-					}
-				} catch (IOException e) {
-					throw new UncheckedIOException(e); // Handled via .exceptionally(...)
-				}
-			}));
+			futures.put(endpoint, fetch(baseMetaUrl, endpoint));
 		}
 
 		CompletableFuture<Void> future = CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]));
@@ -209,6 +200,97 @@ public final class OrnitheMeta {
 		});
 	}
 
+	private static <T> CompletableFuture<T> fetch(String baseMetaUrl, Endpoint<T> endpoint) {
+		String rawUrl = baseMetaUrl + endpoint.endpointPath;
+
+		@SuppressWarnings("unchecked")
+		CompletableFuture<T> future = (CompletableFuture<T>) RESPONSES.computeIfAbsent(rawUrl, k -> DownloadScheduler.submit(rawUrl, () -> {
+			try {
+				URL url = new URL(rawUrl);
+
+				try (JsonReader reader = JsonReader.json(HttpCache.openReader(url))) {
+					return endpoint.deserializer.apply(reader);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e); // Handled via .exceptionally(...)
+			}
+		}));
+
+		// Failures are not kept around, the next request tries again
+		future.whenComplete((value, e) -> {
+			if (e != null) {
+				RESPONSES.remove(rawUrl, future);
+			}
+		});
+
+		return future;
+	}
+
+	/**
+	 * Reads the value of an endpoint from the {@linkplain HttpCache http cache} without touching the network.
+	 *
+	 * @param baseMetaUrl the base url of the meta server
+	 * @param endpoint the endpoint
+	 * @return the value from the last time the endpoint was fetched, or {@code null} if it never was
+	 * @throws IOException if the cached value could not be read or parsed
+	 */
+	@Nullable
+	public static <T> T peek(String baseMetaUrl, Endpoint<T> endpoint) throws IOException {
+		@Nullable
+		byte[] data = HttpCache.peek(new URL(baseMetaUrl + endpoint.endpointPath));
+
+		return data == null ? null : parse(endpoint, data);
+	}
+
+	/**
+	 * Reads the values of several endpoints without touching the network, from the {@linkplain HttpCache http cache}
+	 * or else from the {@linkplain HttpCache#snapshot(URL) snapshot} embedded in the installer.
+	 *
+	 * <p>The values may be outdated, they are meant to be shown while the endpoints are fetched with {@link #create}.
+	 *
+	 * @param baseMetaUrl the base url of the meta server
+	 * @param endpoints the endpoints
+	 * @return the values of the endpoints, or {@code null} if there is no usable copy of one of them
+	 */
+	@Nullable
+	public static OrnitheMeta peek(String baseMetaUrl, Set<Endpoint<?>> endpoints) {
+		Map<Endpoint<?>, Object> resolvedEndpoints = new HashMap<>();
+
+		for (Endpoint<?> endpoint : endpoints) {
+			@Nullable
+			Object value = null;
+
+			try {
+				value = peek(baseMetaUrl, endpoint);
+			} catch (IOException | RuntimeException ignored) {
+				// A corrupt cache entry is the same as not having one
+			}
+
+			if (value == null) {
+				try {
+					@Nullable
+					byte[] data = HttpCache.snapshot(new URL(baseMetaUrl + endpoint.endpointPath));
+					value = data == null ? null : parse(endpoint, data);
+				} catch (IOException | RuntimeException ignored) {
+				}
+			}
+
+			if (value == null) {
+				return null;
+			}
+
+			resolvedEndpoints.put(endpoint, value);
+		}
+
+		return new OrnitheMeta(baseMetaUrl, resolvedEndpoints);
+	}
+
+	private static <T> T parse(Endpoint<T> endpoint, byte[] data) throws IOException {
+		try (JsonReader reader = JsonReader.json(new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8))) {
+			return endpoint.deserializer.apply(reader);
+		}
+	}
+
 	private static Endpoint<List<String>> createVersion(OptionalInt intermediaryGen, String endpointPath) {
 		return new Endpoint<>(intermediaryGen, endpointPath, reader -> {
 			if (reader.peek() != JsonToken.BEGIN_ARRAY) {
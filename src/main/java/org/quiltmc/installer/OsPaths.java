@@ -22,6 +22,8 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Locale;
 
+import org.jetbrains.annotations.Nullable;
+
 public final class OsPaths {
 	/**
 	 * Platform specific environment variable key for the Windows APPDATA folder.
@@ -30,6 +32,7 @@ public final class OsPaths {
 	private static final String MAC_LIBRARY = "Library";
 	private static final String MAC_APPLICATION_SUPPORT = "Application Support";
 	private static final String DOT_MINECRAFT = ".minecraft";
+	private static final String PRISM_LAUNCHER = "PrismLauncher";
 
 	/**
 	 * Get's the data directory that the Minecraft launcher is typically installed at.
@@ -88,6 +91,49 @@ public final class OsPaths {
 		return homeDir.resolve(DOT_MINECRAFT);
 	}
 
+	/**
+	 * Gets the data directory of Prism Launcher, if it is installed in its default location.
+	 * MultiMC keeps its data next to its executable, so it cannot be found this way.
+	 *
+	 * @return the path to the Prism Launcher data directory, or {@code null} if it does not exist
+	 */
+	@Nullable
+	public static Path getPrismLauncherDir() {
+		String userHome = System.getProperty("user.home", ".");
+		String os = System.getProperty("os.name").toLowerCase(Locale.ROOT);
+
+		Path homeDir = Paths.get(userHome);
+		Path dir;
+
+		if (os.contains("win") && System.getenv(WIN_APPDATA) != null) {
+			dir = Paths.get(System.getenv(WIN_APPDATA), PRISM_LAUNCHER);
+		} else if (os.contains("mac")) {
+			dir = homeDir.resolve(MAC_LIBRARY)
+					.resolve(MAC_APPLICATION_SUPPORT)
+					.resolve(PRISM_LAUNCHER);
+		} else {
+			@Nullable
+			String dataHome = System.getenv("XDG_DATA_HOME");
+			dir = (dataHome != null && !dataHome.isEmpty() ? Paths.get(dataHome) : homeDir.resolve(".local").resolve("share")).resolve(PRISM_LAUNCHER);
+
+			if (!Files.isDirectory(dir)) {
+				// try flatpak location
+				dir = homeDir.resolve(".var").resolve("app").resolve("org.prismlauncher.PrismLauncher").resolve("data").resolve(PRISM_LAUNCHER);
+			}
+		}
+
+		return Files.isDirectory(dir) ? dir : null;
+	}
+
+	/**
+	 * Gets the directory the installer keeps its own data in, such as caches.
+	 *
+	 * @return the path to the installer data directory
+	 */
+	public static Path getInstallerDataDir() {
+		return getUserDataDir().resolve("ornithe-installer");
+	}
+
 	private OsPaths() {
 	}
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.installer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Remaps the server jar to intermediary at install time, so the loader finds it already remapped on first start.
+ *
+ * <p>The remapping is done by the tiny-remapper the loader itself depends on, which reads and writes the jar entries
+ * in parallel. It runs in a separate JVM from the libraries of the installation, which were verified against the
+ * hashes given by the meta server like every other library.
+ *
+ * <p>The remapped jar is placed where Fabric Loader caches it, which depends on the loader version and on the game
+ * version as the loader normalizes it, such as {@code 1.0.0-beta.7.3} for {@code b1.7.3}. The normalized version is
+ * determined by the version lookup of the installed loader, so it always matches.
+ */
+public final class ServerRemapper {
+	private static final String TINY_REMAPPER_MAIN = "net.fabricmc.tinyremapper.Main";
+	private static final String VERSION_LOOKUP = "net.fabricmc.loader.impl.game.minecraft.McVersionLookup";
+	private static final String MAPPINGS_ENTRY = "mappings/mappings.tiny";
+	private static final String TARGET_NAMESPACE = "intermediary";
+	private static final long TIMEOUT = TimeUnit.MINUTES.toSeconds(10);
+	private static final String LOG_FILE = "remap.log";
+
+	/**
+	 * Gets the path the loader reads the remapped server jar from.
+	 *
+	 * @param installDir the server installation directory, which is the game directory of the server
+	 * @param loaderType the loader
+	 * @param loaderVersion the loader version
+	 * @param serverJar the server jar, which the loader reads the game version from
+	 * @param libraries the libraries of the installation, which include the loader
+	 * @return the path of the remapped jar
+	 * @throws IOException if the loader would not read a remapped jar the installer can place
+	 */
+	public static Path remappedJar(Path installDir, LoaderType loaderType, String loaderVersion, Path serverJar, List<Path> libraries) throws IOException {
+		if (loaderType != LoaderType.FABRIC) {
+			throw new IOException(String.format("%s does not read remapped game jars from a location the installer can determine", loaderType.getLocalizedName()));
+		}
+
+		// Same directory name as GameProviderHelper in the loader
+		String versionDir = String.format("minecraft-%s-%s", normalizedVersion(serverJar, libraries), loaderVersion).replaceAll("[^\\w\\-. ]+", "_");
+
+		return installDir.resolve("." + loaderType.getName())
+				.resolve("remappedJars")
+				.resolve(versionDir)
+				.resolve("server-" + TARGET_NAMESPACE + ".jar");
+	}
+
+	/**
+	 * Looks up the game version of the server jar with the loader, which normalizes it to a semantic version.
+	 */
+	private static String normalizedVersion(Path serverJar, List<Path> libraries) throws IOException {
+		URL[] urls = new URL[libraries.size()];
+
+		for (int i = 0; i < urls.length; i++) {
+			urls[i] = libraries.get(i).toUri().toURL();
+		}
+
+		try (URLClassLoader loader = new URLClassLoader(urls, ServerRemapper.class.getClassLoader())) {
+			Class<?> lookup = Class.forName(VERSION_LOOKUP, true, loader);
+			Object version = lookup.getMethod("getVersion", List.class, String.class, String.class)
+					.invoke(null, Collections.singletonList(serverJar), null, null);
+
+			return (String) version.getClass().getMethod("getNormalized").invoke(version);
+		} catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+			throw new IOException("Could not look up the game version with the installed loader", e);
+		}
+	}
+
+	/**
+	 * Remaps the server jar.
+	 *
+	 * @param serverJar the server jar
+	 * @param intermediaryJar the jar containing the intermediary mappings
+	 * @param output the path to write the remapped jar to, replacing any existing one
+	 * @param libraries the libraries of the installation, which include tiny-remapper
+	 * @throws IOException if the libraries do not include tiny-remapper, or remapping failed
+	 */
+	public static void remap(Path serverJar, Path intermediaryJar, Path output, List<Path> libraries) throws IOException {
+		if (libraries.stream().noneMatch(library -> library.getFileName().toString().startsWith("tiny-remapper-"))) {
+			throw new IOException("The libraries of the installation do not include tiny-remapper");
+		}
+
+		String classPath = libraries.stream().map(Path::toString).collect(Collectors.joining(File.pathSeparator));
+		Files.createDirectories(output.getParent());
+		Path mappings = Files.createTempFile(output.getParent(), "mappings", ".tiny");
+		Path tmp = output.resolveSibling(output.getFileName() + ".tmp");
+		Path log = output.resolveSibling(LOG_FILE);
+
+		try {
+			String sourceNamespace = extractMappings(intermediaryJar, mappings);
+			Files.deleteIfExists(tmp);
+
+			Process process = new ProcessBuilder(
+					Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+					"-cp", classPath,
+					TINY_REMAPPER_MAIN,
+					serverJar.toString(),
+					tmp.toString(),
+					mappings.toString(),
+					sourceNamespace,
+					TARGET_NAMESPACE,
+					"--threads=" + Runtime.getRuntime().availableProcessors(),
+					"--renameInvalidLocals",
+					"--rebuildSourceFilenames",
+					"--nonClassCopyMode=fixmeta"
+			).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+
+			try {
+				if (!process.waitFor(TIMEOUT, TimeUnit.SECONDS)) {
+					process.destroyForcibly();
+					throw new IOException(String.format("Remapping did not finish in time, see %s", log));
+				}
+			} catch (InterruptedException e) {
+				process.destroyForcibly();
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while remapping", e);
+			}
+
+			if (process.exitValue() != 0 || Files.notExists(tmp)) {
+				throw new IOException(String.format("Remapping exited with code %d, see %s", process.exitValue(), log));
+			}
+
+			Files.move(tmp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			Files.deleteIfExists(log);
+		} finally {
+			Files.deleteIfExists(mappings);
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/**
+	 * Extracts the mappings, which tiny-remapper cannot read from inside a jar.
+	 *
+	 * @return the namespace the server jar is mapped from
+	 */
+	private static String extractMappings(Path intermediaryJar, Path target) throws IOException {
+		try (ZipFile jar = new ZipFile(intermediaryJar.toFile())) {
+			ZipEntry entry = jar.getEntry(MAPPINGS_ENTRY);
+
+			if (entry == null) {
+				throw new IOException(String.format("%s does not contain %s", intermediaryJar, MAPPINGS_ENTRY));
+			}
+
+			try (InputStream stream = jar.getInputStream(entry)) {
+				Files.copy(stream, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(target), StandardCharsets.UTF_8))) {
+			String header = reader.readLine();
+
+			if (header == null) {
+				throw new IOException(String.format("Mappings in %s are empty", intermediaryJar));
+			}
+
+			// Versions from before the client and server were merged have separate namespaces for each side
+			for (String namespace : header.split("\t")) {
+				if (namespace.equals("serverOfficial")) {
+					return namespace;
+				}
+			}
+
+			return "official";
+		}
+	}
+
+	private ServerRemapper() {
+	}
+}
@@ -16,7 +16,263 @@
 
 package org.quiltmc.installer;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.OptionalLong;
+import java.util.Set;
+
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.installer.util.Maps;
+import org.quiltmc.installer.util.Template;
+
+/**
+ * Generates the launch scripts of a server installation.
+ *
+ * <p>The JVM options in the scripts are chosen from the host the installer runs on: the heap size from the
+ * physical memory, and large pages from the transparent huge pages setting on Linux. The scripts launch whichever
+ * {@code java} the server is started with, which need not be the one running the installer, so the garbage
+ * collector defaults to G1 which every supported Java has. The heap size and garbage collector can be overridden.
+ */
 public final class ServerScripts {
+	public static final String UNIX_SCRIPT = "start.sh";
+	public static final String WINDOWS_SCRIPT = "start.bat";
+	private static final long MIN_HEAP_MB = 1024;
+	private static final long MAX_HEAP_MB = 16 * 1024;
+	private static final String THP_ENABLED = "/sys/kernel/mm/transparent_hugepage/enabled";
+
+	/**
+	 * Writes the launch scripts, replacing any existing ones.
+	 *
+	 * @param installDir the server installation directory
+	 * @param launchJar the file name of the launch jar
+	 * @param options the overrides for the detected settings
+	 * @return the JVM arguments used by the scripts
+	 */
+	public static List<String> write(Path installDir, String launchJar, Options options) throws IOException {
+		Host host = Host.detect();
+		List<String> jvmArgs = jvmArguments(host, options);
+		String args = String.join(" ", jvmArgs);
+
+		Files.createDirectories(installDir);
+
+		for (String script : new String[] { UNIX_SCRIPT, WINDOWS_SCRIPT }) {
+			String rendered = Template.resource("/scripts/" + script).render(Maps.of(
+					"host", host.toString(),
+					"jvm_args", args,
+					"launch_jar", launchJar,
+					"cds_archive", cdsArchive(launchJar)
+			));
+
+			if (script.equals(WINDOWS_SCRIPT)) {
+				rendered = rendered.replace("\n", "\r\n");
+			}
+
+			Path path = installDir.resolve(script);
+			Files.write(path, rendered.getBytes(StandardCharsets.UTF_8));
+
+			if (script.equals(UNIX_SCRIPT)) {
+				makeExecutable(path);
+			}
+		}
+
+		return jvmArgs;
+	}
+
+	/**
+	 * @return whether launch scripts exist in the installation directory
+	 */
+	public static boolean exist(Path installDir) {
+		return Files.exists(installDir.resolve(UNIX_SCRIPT)) || Files.exists(installDir.resolve(WINDOWS_SCRIPT));
+	}
+
+	/**
+	 * Gets the file name of the class data sharing archive used by the scripts, which is loaded if it exists.
+	 *
+	 * @param launchJar the file name of the launch jar
+	 * @return the file name of the archive
+	 */
+	public static String cdsArchive(String launchJar) {
+		return (launchJar.endsWith(".jar") ? launchJar.substring(0, launchJar.length() - 4) : launchJar) + ".jsa";
+	}
+
+	static List<String> jvmArguments(Host host, Options options) {
+		long heap = options.heapMegabytes.orElse(Math.max(MIN_HEAP_MB, Math.min(MAX_HEAP_MB, host.memoryMegabytes / 2)));
+		GarbageCollector gc = options.gc != null ? options.gc : GarbageCollector.G1;
+		List<String> args = new ArrayList<>();
+
+		// With an equal minimum and maximum the heap never resizes, and pre touching it moves the cost of
+		// faulting in its pages to startup instead of the first ticks
+		args.add("-Xms" + heap + "M");
+		args.add("-Xmx" + heap + "M");
+		args.add("-XX:+AlwaysPreTouch");
+		args.addAll(gc.arguments());
+
+		if (host.transparentHugePages) {
+			args.add("-XX:+UseTransparentHugePages");
+		}
+
+		return args;
+	}
+
+	private static void makeExecutable(Path path) throws IOException {
+		@Nullable
+		PosixFileAttributeView view = Files.getFileAttributeView(path, PosixFileAttributeView.class);
+
+		if (view != null) {
+			Set<PosixFilePermission> permissions = EnumSet.copyOf(view.readAttributes().permissions());
+			permissions.add(PosixFilePermission.OWNER_EXECUTE);
+			permissions.add(PosixFilePermission.GROUP_EXECUTE);
+			permissions.add(PosixFilePermission.OTHERS_EXECUTE);
+			view.setPermissions(permissions);
+		}
+	}
+
 	private ServerScripts() {
 	}
+
+	public enum GarbageCollector {
+		G1("g1"),
+		ZGC("zgc"),
+		PARALLEL("parallel");
+
+		private final String name;
+
+		GarbageCollector(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		@Nullable
+		public static GarbageCollector of(String name) {
+			for (GarbageCollector gc : values()) {
+				if (gc.name.equalsIgnoreCase(name)) {
+					return gc;
+				}
+			}
+
+			return null;
+		}
+
+		List<String> arguments() {
+			switch (this) {
+			case ZGC:
+				// Mode flags such as -XX:+ZGenerational are only recognized by some Java versions, and an
+				// unrecognized flag stops the JVM from starting, so only the collector itself is selected
+				return Arrays.asList("-XX:+UseZGC");
+			case PARALLEL:
+				return Arrays.asList("-XX:+UseParallelGC");
+			default:
+				return Arrays.asList("-XX:+UseG1GC", "-XX:MaxGCPauseMillis=200", "-XX:+ParallelRefProcEnabled", "-XX:+DisableExplicitGC");
+			}
+		}
+	}
+
+	/**
+	 * Overrides for the settings detected from the host.
+	 */
+	public static final class Options {
+		public static final Options DEFAULT = new Options(OptionalLong.empty(), null);
+		final OptionalLong heapMegabytes;
+		@Nullable
+		final GarbageCollector gc;
+
+		/**
+		 * @param heapMegabytes the heap size, or empty to use half of the physical memory
+		 * @param gc the garbage collector, or {@code null} to use G1
+		 */
+		public Options(OptionalLong heapMegabytes, @Nullable GarbageCollector gc) {
+			this.heapMegabytes = heapMegabytes;
+			this.gc = gc;
+		}
+	}
+
+	/**
+	 * The resources of the host the installer runs on, which is assumed to be the host the server will run on.
+	 */
+	static final class Host {
+		final int processors;
+		final long memoryMegabytes;
+		final int javaVersion;
+		final boolean transparentHugePages;
+
+		Host(int processors, long memoryMegabytes, int javaVersion, boolean transparentHugePages) {
+			this.processors = processors;
+			this.memoryMegabytes = memoryMegabytes;
+			this.javaVersion = javaVersion;
+			this.transparentHugePages = transparentHugePages;
+		}
+
+		static Host detect() {
+			return new Host(Runtime.getRuntime().availableProcessors(), detectMemory() / (1024 * 1024), javaVersion(), detectTransparentHugePages());
+		}
+
+		/**
+		 * @return the feature version of the running Java, such as 8 or 17
+		 */
+		static int javaVersion() {
+			String version = System.getProperty("java.specification.version");
+
+			if (version.startsWith("1.")) {
+				version = version.substring(2);
+			}
+
+			try {
+				return Integer.parseInt(version);
+			} catch (NumberFormatException e) {
+				return 8;
+			}
+		}
+
+		private static long detectMemory() {
+			OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+
+			if (os instanceof com.sun.management.OperatingSystemMXBean) {
+				// Takes container limits into account on recent Java versions
+				long total = ((com.sun.management.OperatingSystemMXBean) os).getTotalPhysicalMemorySize();
+
+				if (total > 0) {
+					return total;
+				}
+			}
+
+			// The default maximum heap is a quarter of the physical memory
+			return Runtime.getRuntime().maxMemory() * 4;
+		}
+
+		private static boolean detectTransparentHugePages() {
+			Path enabled = Paths.get(THP_ENABLED);
+
+			if (!System.getProperty("os.name").toLowerCase(Locale.ROOT).contains("linux") || !Files.isReadable(enabled)) {
+				return false;
+			}
+
+			try {
+				// The active mode is in brackets, such as "always [madvise] never"
+				String modes = new String(Files.readAllBytes(enabled), StandardCharsets.UTF_8);
+				return modes.contains("[always]") || modes.contains("[madvise]");
+			} catch (IOException e) {
+				return false;
+			}
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d cores, %d MiB of memory and Java %d", this.processors, this.memoryMegabytes, this.javaVersion);
+		}
+	}
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.installer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A transport using {@link URLConnection}, which is available on every runtime.
+ *
+ * <p>The JDK keeps idle http connections alive and reuses them for later requests to the same host,
+ * as long as every response body is read to the end. Responses therefore drain what is left of their
+ * body when closed.
+ */
+public final class UrlConnectionTransport implements HttpTransport {
+	@Override
+	public Response get(URL url, Map<String, String> headers) throws IOException {
+		URLConnection connection = url.openConnection();
+		connection.setConnectTimeout(HttpTransports.CONNECT_TIMEOUT);
+		connection.setReadTimeout(HttpTransports.READ_TIMEOUT);
+		connection.setRequestProperty("Accept-Encoding", HttpTransports.ACCEPT_ENCODING);
+
+		for (Map.Entry<String, String> header : headers.entrySet()) {
+			connection.setRequestProperty(header.getKey(), header.getValue());
+		}
+
+		if (!(connection instanceof HttpURLConnection)) {
+			// Such as file urls, which have no status
+			return new UrlConnectionResponse(connection, HttpURLConnection.HTTP_OK, connection.getInputStream());
+		}
+
+		HttpURLConnection http = (HttpURLConnection) connection;
+		int status = http.getResponseCode();
+
+		return new UrlConnectionResponse(connection, status, status >= 400 ? http.getErrorStream() : http.getInputStream());
+	}
+
+	private static final class UrlConnectionResponse implements Response {
+		private final URLConnection connection;
+		private final int status;
+		@Nullable
+		private final InputStream raw;
+		@Nullable
+		private InputStream body;
+
+		UrlConnectionResponse(URLConnection connection, int status, @Nullable InputStream raw) {
+			this.connection = connection;
+			this.status = status;
+			this.raw = raw;
+		}
+
+		@Override
+		public int statusCode() {
+			return this.status;
+		}
+
+		@Nullable
+		@Override
+		public String header(String name) {
+			return this.connection.getHeaderField(name);
+		}
+
+		@Override
+		public long contentLength() {
+			// The length header is the length of the encoded body
+			return HttpTransports.isEncoded(this.header("Content-Encoding")) ? -1 : this.connection.getContentLengthLong();
+		}
+
+		@Override
+		public InputStream body() throws IOException {
+			if (this.body == null) {
+				if (this.raw == null) {
+					throw new IOException("Response from " + this.connection.getURL() + " has no body");
+				}
+
+				this.body = HttpTransports.decode(this.header("Content-Encoding"), this.raw);
+			}
+
+			return this.body;
+		}
+
+		@Override
+		public void close() throws IOException {
+			HttpTransports.drain(this.raw);
+		}
+	}
+}
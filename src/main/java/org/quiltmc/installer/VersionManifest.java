@@ -16,15 +16,16 @@
 
 package org.quiltmc.installer;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -38,28 +39,97 @@ import org.quiltmc.parsers.json.JsonToken;
 public final class VersionManifest implements Collection<VersionManifest.Version> {
 	private static final String LAUNCHER_META_URL = "https://ornithemc.net/mc-versions/version_manifest.json";
 	private static final String LAUNCHER_META_BY_GEN_URL = "https://ornithemc.net/mc-versions/gen2/version_manifest.json";
+	private static final Map<String, CompletableFuture<VersionManifest>> MANIFESTS = new ConcurrentHashMap<>();
 
 	private final Version latestRelease;
 	private final Version latestSnapshot;
 	private final Map<String, Version> versions;
 
+	/**
+	 * Gets the version manifest.
+	 *
+	 * <p>The manifest is downloaded at most once per run, no matter how many callers ask for it.
+	 *
+	 * @param intermediaryGen the intermediary generation, or empty for the default generation
+	 * @return a future containing the manifest
+	 */
 	public static CompletableFuture<VersionManifest> create(OptionalInt intermediaryGen) {
-		return CompletableFuture.supplyAsync(() -> {
+		String rawUrl = url(intermediaryGen);
+		CompletableFuture<VersionManifest> future = MANIFESTS.computeIfAbsent(rawUrl, k -> DownloadScheduler.submit(rawUrl, () -> {
 			try {
-				URL url = new URL(!intermediaryGen.isPresent()
-					? LAUNCHER_META_URL
-					: String.format(LAUNCHER_META_BY_GEN_URL, intermediaryGen.getAsInt()));
-				URLConnection connection = Connections.openConnection(url);
+				URL url = new URL(rawUrl);
 
-				InputStreamReader stream = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8);
-
-				try (JsonReader reader = JsonReader.json(new BufferedReader(stream))) {
+				try (JsonReader reader = JsonReader.json(HttpCache.openReader(url))) {
 					return read(reader);
 				}
 			} catch (IOException e) {
 				throw new UncheckedIOException(e); // Handled via .exceptionally(...)
 			}
+		}));
+
+		// Failures are not kept around, the next caller tries again
+		future.whenComplete((manifest, e) -> {
+			if (e != null) {
+				MANIFESTS.remove(rawUrl, future);
+			}
 		});
+
+		return future;
+	}
+
+	/**
+	 * Reads the version manifest without touching the network, from the {@linkplain HttpCache http cache}
+	 * or else from the {@linkplain HttpCache#snapshot(URL) snapshot} embedded in the installer.
+	 *
+	 * <p>The manifest may be outdated, it is meant to be shown while the manifest is fetched with {@link #create}.
+	 *
+	 * @param intermediaryGen the intermediary generation, or empty for the default generation
+	 * @return the manifest, or {@code null} if there is no usable copy of it
+	 */
+	@Nullable
+	public static VersionManifest peek(OptionalInt intermediaryGen) {
+		URL url;
+
+		try {
+			url = new URL(url(intermediaryGen));
+		} catch (MalformedURLException e) {
+			throw new IllegalStateException(e);
+		}
+
+		@Nullable
+		VersionManifest manifest = null;
+
+		try {
+			manifest = parse(HttpCache.peek(url));
+		} catch (IOException | RuntimeException ignored) {
+			// A corrupt cache entry is the same as not having one
+		}
+
+		if (manifest == null) {
+			try {
+				manifest = parse(HttpCache.snapshot(url));
+			} catch (IOException | RuntimeException ignored) {
+			}
+		}
+
+		return manifest;
+	}
+
+	@Nullable
+	private static VersionManifest parse(@Nullable byte[] data) throws IOException {
+		if (data == null) {
+			return null;
+		}
+
+		try (JsonReader reader = JsonReader.json(new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8))) {
+			return read(reader);
+		}
+	}
+
+	private static String url(OptionalInt intermediaryGen) {
+		return !intermediaryGen.isPresent()
+				? LAUNCHER_META_URL
+				: String.format(LAUNCHER_META_BY_GEN_URL, intermediaryGen.getAsInt());
 	}
 
 	private static VersionManifest read(JsonReader reader) throws IOException, ParseException {
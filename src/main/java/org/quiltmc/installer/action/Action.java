@@ -32,6 +32,7 @@ import org.quiltmc.installer.CliInstaller;
 import org.quiltmc.installer.Intermediary;
 import org.quiltmc.installer.LauncherType;
 import org.quiltmc.installer.LoaderType;
+import org.quiltmc.installer.ServerScripts;
 
 /**
  * Represents an installer action to be performed.
@@ -92,12 +93,20 @@ public abstract class Action<M> {
 		return new ListVersions(loaderType, intermediaryGen, minecraftSnapshots, loaderBetas);
 	}
 
-	public static InstallClient installClient(String minecraftVersion, LauncherType launcherType, LoaderType loaderType, @Nullable String loaderVersion, OptionalInt intermediaryGen, @Nullable Intermediary intermediary, @Nullable String installDir, boolean generateProfile, boolean copyProfilePath) {
-		return new InstallClient(minecraftVersion, launcherType, loaderType, loaderVersion, intermediaryGen, intermediary, installDir, generateProfile, copyProfilePath);
+	public static InstallClient installClient(String minecraftVersion, LauncherType launcherType, LoaderType loaderType, @Nullable String loaderVersion, OptionalInt intermediaryGen, @Nullable Intermediary intermediary, @Nullable String installDir, boolean generateProfile, boolean copyProfilePath, boolean downloadLibraries, boolean downloadAssets, @Nullable String assetsDir) {
+		return new InstallClient(minecraftVersion, launcherType, loaderType, loaderVersion, intermediaryGen, intermediary, installDir, generateProfile, copyProfilePath, downloadLibraries, downloadAssets, assetsDir);
 	}
 
-	public static InstallServer installServer(String minecraftVersion, LoaderType loaderType, @Nullable String loaderVersion, OptionalInt intermediaryGen, @Nullable Intermediary intermediary, String installDir, boolean createScripts, boolean installServer) {
-		return new InstallServer(minecraftVersion, loaderType, loaderVersion, intermediaryGen, intermediary, installDir, createScripts, installServer);
+	public static InstallServer installServer(String minecraftVersion, LoaderType loaderType, @Nullable String loaderVersion, OptionalInt intermediaryGen, @Nullable Intermediary intermediary, String installDir, @Nullable ServerScripts.Options scriptOptions, boolean installServer, boolean bundle, boolean remap, boolean trainCds) {
+		return new InstallServer(minecraftVersion, loaderType, loaderVersion, intermediaryGen, intermediary, installDir, scriptOptions, installServer, bundle, remap, trainCds);
+	}
+
+	public static UpgradeServer upgradeServer(String minecraftVersion, LoaderType loaderType, @Nullable String loaderVersion, OptionalInt intermediaryGen, @Nullable String installDir, boolean installServer, boolean bundle) {
+		return new UpgradeServer(minecraftVersion, loaderType, loaderVersion, intermediaryGen, installDir, installServer, bundle);
+	}
+
+	public static Action<Void> manageCache(ManageCache.Mode mode, long maxSize, long maxAge) {
+		return new ManageCache(mode, maxSize, maxAge);
 	}
 
 	static void println(String message) {
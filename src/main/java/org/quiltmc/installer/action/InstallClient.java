@@ -16,22 +16,28 @@
 
 package org.quiltmc.installer.action;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.io.UncheckedIOException;
-import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.OptionalInt;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 import org.jetbrains.annotations.Nullable;
+import org.quiltmc.installer.Assets;
+import org.quiltmc.installer.DownloadProgress;
 import org.quiltmc.installer.OsPaths;
 import org.quiltmc.parsers.json.JsonReader;
 import org.quiltmc.installer.GameSide;
@@ -46,7 +52,13 @@ import org.quiltmc.installer.MmcPackCreator;
 /**
  * An action which installs a new client instance.
  */
-public final class InstallClient extends Action<InstallMessageType> {
+public final class InstallClient extends Action<InstallMessage> {
+	private static final String PHASE_RESOLVE = "Resolving versions";
+	private static final String PHASE_PROFILE = "Creating profile";
+	private static final String PHASE_PACK = "Generating pack";
+	private static final String PHASE_LIBRARIES = "Downloading libraries";
+	private static final String PHASE_ASSETS = "Downloading assets";
+
 	private final String minecraftVersion;
 	private final LauncherType launcherType;
 	private final LoaderType loaderType;
@@ -59,9 +71,13 @@ public final class InstallClient extends Action<InstallMessageType> {
 	private final String installDir;
 	private final boolean generateProfile;
 	private final boolean copyProfilePath;
+	private final boolean downloadLibraries;
+	private final boolean downloadAssets;
+	@Nullable
+	private final String assetsDir;
 	private Path installDirPath;
 
-	InstallClient(String minecraftVersion, LauncherType launcherType, LoaderType loaderType, @Nullable String loaderVersion, OptionalInt intermediaryGen, @Nullable Intermediary intermediary, @Nullable String installDir, boolean generateProfile, boolean copyProfilePath) {
+	InstallClient(String minecraftVersion, LauncherType launcherType, LoaderType loaderType, @Nullable String loaderVersion, OptionalInt intermediaryGen, @Nullable Intermediary intermediary, @Nullable String installDir, boolean generateProfile, boolean copyProfilePath, boolean downloadLibraries, boolean downloadAssets, @Nullable String assetsDir) {
 		this.minecraftVersion = minecraftVersion;
 		this.launcherType = launcherType;
 		this.loaderType = loaderType;
@@ -71,10 +87,13 @@ public final class InstallClient extends Action<InstallMessageType> {
 		this.installDir = installDir;
 		this.generateProfile = generateProfile;
 		this.copyProfilePath = copyProfilePath;
+		this.downloadLibraries = downloadLibraries;
+		this.downloadAssets = downloadAssets;
+		this.assetsDir = assetsDir;
 	}
 
 	@Override
-	public void run(Consumer<InstallMessageType> statusTracker) {
+	public void run(Consumer<InstallMessage> statusTracker) {
 		switch (this.launcherType) {
 		case OFFICIAL:
 			this.installOfficial(statusTracker);
@@ -87,7 +106,7 @@ public final class InstallClient extends Action<InstallMessageType> {
 		}
 	}
 
-	private void installOfficial(Consumer<InstallMessageType> statusTracker) {
+	private void installOfficial(Consumer<InstallMessage> statusTracker) {
 		Path installDir;
 
 		if (this.installDir == null) {
@@ -117,9 +136,12 @@ public final class InstallClient extends Action<InstallMessageType> {
 		 * 7. (Optional) create profile if needed
 		 */
 
+		statusTracker.accept(InstallMessage.phaseStarted(PHASE_RESOLVE));
 		CompletableFuture<MinecraftInstallation.InstallationInfo> installationInfoFuture = MinecraftInstallation.getInfo(GameSide.CLIENT, this.minecraftVersion, this.loaderType, this.loaderVersion, this.intermediaryGen, this.intermediary);
 
-		installationInfoFuture.thenCompose(installationInfo -> LaunchJson.get(installationInfo.manifest().getVersion(this.minecraftVersion)).thenCompose(vanillaLaunchJson -> LaunchJson.get(GameSide.CLIENT, installationInfo.manifest().getVersion(this.minecraftVersion), installationInfo.intermediaryGen(), installationInfo.intermediary(), this.loaderType, installationInfo.loaderVersion()).thenAccept(launchJson -> {
+		installationInfoFuture.thenCompose(installationInfo -> LaunchJson.get(installationInfo.manifest().getVersion(this.minecraftVersion)).thenCompose(vanillaLaunchJson -> LaunchJson.get(GameSide.CLIENT, installationInfo.manifest().getVersion(this.minecraftVersion), installationInfo.intermediaryGen(), installationInfo.intermediary(), this.loaderType, installationInfo.loaderVersion()).thenCompose(launchJson -> {
+			statusTracker.accept(InstallMessage.phaseFinished(PHASE_RESOLVE));
+			statusTracker.accept(InstallMessage.phaseStarted(PHASE_PROFILE));
 			println("Creating profile launch json");
 
 			Map<String, Object> vanillaLaunchJsonMap;
@@ -141,32 +163,15 @@ public final class InstallClient extends Action<InstallMessageType> {
 			String vanillaProfileName = (String) vanillaLaunchJsonMap.get("id");
 			String profileName = (String) launchJsonMap.get("id");
 
-			// Directories
 			Path versionsDir = this.installDirPath.resolve("versions");
-			Path vanillaProfileDir = versionsDir.resolve(vanillaProfileName);
-			Path vanillaProfileJson = vanillaProfileDir.resolve(vanillaProfileName + ".json");
-			Path profileDir = versionsDir.resolve(profileName);
-			Path profileJson = profileDir.resolve(profileName + ".json");
-
-			// Nuke everything that already exists
-			clearProfileDir(vanillaProfileDir);
-			clearProfileDir(profileDir);
-
-			/*
-			 * Abuse some of the vanilla launcher's undefined behavior:
-			 *
-			 * Assumption is the profile name is the same as the maven artifact.
-			 * The profile name we set is a combination of two artifacts (loader + mappings).
-			 * As long as the jar file exists of the same name the launcher won't complain.
-			 */
-
-			// Make our pretender jar
-			makePretenderJar(vanillaProfileDir, vanillaProfileName);
-			makePretenderJar(profileDir, profileName);
-
-			// Write the launch json
-			writeLaunchJson(vanillaProfileJson, vanillaLaunchJson);
-			writeLaunchJson(profileJson, launchJson);
+
+			try {
+				// Directories whose launch json did not change are left alone, which keeps the client jar the launcher downloaded
+				writeProfileDir(versionsDir, vanillaProfileName, vanillaLaunchJson);
+				writeProfileDir(versionsDir, profileName, launchJson);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e); // Handle via exceptionally
+			}
 
 			// Create the profile - this is typically set by default
 			if (this.generateProfile) {
@@ -177,29 +182,186 @@ public final class InstallClient extends Action<InstallMessageType> {
 					throw new UncheckedIOException(e); // Handle via exceptionally
 				}
 			}
-			statusTracker.accept(InstallMessageType.SUCCEED);
+			statusTracker.accept(InstallMessage.phaseFinished(PHASE_PROFILE));
+
+			CompletableFuture<Void> libraries = CompletableFuture.completedFuture(null);
+
+			if (this.downloadLibraries) {
+				statusTracker.accept(InstallMessage.phaseStarted(PHASE_LIBRARIES));
+
+				libraries = downloadLibraries(this.installDirPath.resolve("libraries"), launchJsonMap, statusTracker)
+						.thenRun(() -> statusTracker.accept(InstallMessage.phaseFinished(PHASE_LIBRARIES)));
+			}
+
+			return libraries.thenCompose(v -> this.downloadAssets(vanillaLaunchJsonMap, this.installDirPath.resolve("assets"), statusTracker));
+		}))).thenRun(() -> {
+			statusTracker.accept(InstallMessage.succeed());
 			println("Completed installation");
-		}))).exceptionally(e -> {
+		}).exceptionally(e -> {
 			eprintln("Failed to install client");
 			e.printStackTrace();
-			statusTracker.accept(InstallMessageType.FAIL);
+			statusTracker.accept(InstallMessage.fail());
 			return null;
 		}).join();
 	}
 
-	private static void clearProfileDir(Path dir) {
-		try {
-			Files.walk(dir).map(Path::toFile).sorted((o1, o2) -> -o1.compareTo(o2)).forEach(File::delete);
-		 } catch (IOException ignored) {
-			//
+	/**
+	 * Downloads the libraries of the modded launch json into the libraries directory of the launcher,
+	 * so it does not need to download them one by one when the profile is first launched.
+	 */
+	private static CompletableFuture<Void> downloadLibraries(Path librariesDir, Map<String, Object> launchJson, Consumer<InstallMessage> statusTracker) {
+		DownloadProgress progress = new DownloadProgress((artifact, bytes, length, p) -> statusTracker.accept(InstallMessage.downloadProgress(artifact, bytes, length, p)));
+		Object libraries = launchJson.get("libraries");
+
+		if (!(libraries instanceof List)) {
+			throw new IllegalStateException("Libraries in the launch json must be an array");
+		}
+
+		List<CompletableFuture<Path>> libraryFiles = new ArrayList<>();
+
+		for (Object library : (List<?>) libraries) {
+			if (!(library instanceof Map)) {
+				throw new IllegalStateException("All libraries must be json objects!");
+			}
+
+			Map<?, ?> libraryFields = (Map<?, ?>) library;
+			Object name = libraryFields.get("name");
+			Object url = libraryFields.get("url");
+			Object sha1 = libraryFields.get("sha1");
+
+			if (!(name instanceof String) || !(url instanceof String)) {
+				// Not a maven library, which the launcher resolves on its own
+				continue;
+			}
+
+			libraryFiles.add(InstallServer.downloadLibrary(librariesDir, (String) name, (String) url, sha1 instanceof String ? (String) sha1 : null, progress));
+		}
+
+		println(String.format("Downloading %d libraries", libraryFiles.size()));
+
+		return CompletableFuture.allOf(libraryFiles.toArray(new CompletableFuture[0]));
+	}
+
+	/**
+	 * Downloads the assets of the game into the assets directory of the launcher, if requested.
+	 *
+	 * @param defaultAssetsDir the assets directory of the launcher, used unless another one was given
+	 */
+	private CompletableFuture<Void> downloadAssets(Map<String, Object> vanillaLaunchJson, @Nullable Path defaultAssetsDir, Consumer<InstallMessage> statusTracker) {
+		if (!this.downloadAssets) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		@Nullable
+		Path assetsDir = this.assetsDir != null ? Paths.get(this.assetsDir) : defaultAssetsDir;
+
+		if (assetsDir == null) {
+			eprintln("Could not find the assets directory of the launcher, pass --assets-dir to download the assets");
+			return CompletableFuture.completedFuture(null);
+		}
+
+		if (!Assets.hasAssetIndex(vanillaLaunchJson)) {
+			// The launcher downloads the assets itself, prefetching them only saves time
+			eprintln("Skipping the assets, the launch json of the version has no asset index");
+			return CompletableFuture.completedFuture(null);
+		}
+
+		statusTracker.accept(InstallMessage.phaseStarted(PHASE_ASSETS));
+		println(String.format("Downloading assets into %s", assetsDir));
+		DownloadProgress progress = new DownloadProgress((artifact, bytes, length, p) -> statusTracker.accept(InstallMessage.downloadProgress(artifact, bytes, length, p)));
+
+		return Assets.prefetch(assetsDir, vanillaLaunchJson, progress).thenAccept(downloaded -> {
+			println(String.format("Downloaded %d asset objects", downloaded));
+			statusTracker.accept(InstallMessage.phaseFinished(PHASE_ASSETS));
+		});
+	}
+
+	/**
+	 * Writes a version directory of the launcher, unless it already has the same launch json.
+	 *
+	 * <p>A changed directory is prepared in a staging directory next to it and renamed into place, so the launcher
+	 * never sees a half written one.
+	 */
+	private static void writeProfileDir(Path versionsDir, String profileName, String json) throws IOException {
+		Path dir = versionsDir.resolve(profileName);
+		Path jsonPath = dir.resolve(profileName + ".json");
+		Path jarPath = dir.resolve(profileName + ".jar");
+		byte[] jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+
+		if (Files.exists(jsonPath) && Arrays.equals(jsonBytes, Files.readAllBytes(jsonPath))) {
+			println(String.format("Profile %s is up to date", profileName));
+			makePretenderJar(dir, profileName);
+			return;
 		}
+
+		Path staging = versionsDir.resolve("." + profileName + ".staging");
+		Path old = versionsDir.resolve("." + profileName + ".old");
+
+		// Left over by an installer which was stopped halfway
+		for (Path leftover : new Path[] { staging, old }) {
+			if (Files.exists(leftover)) {
+				deleteRecursively(leftover);
+			}
+		}
+
+		Files.createDirectories(staging);
+
 		try {
-			Files.createDirectories(dir);
-		} catch (IOException e) {
-			throw new UncheckedIOException(e); // Handle via exceptionally
+			Files.write(staging.resolve(profileName + ".json"), jsonBytes);
+
+			if (Files.exists(jarPath)) {
+				// The launcher checks the jar against the new launch json and downloads it again if it changed
+				try {
+					Files.createLink(staging.resolve(profileName + ".jar"), jarPath);
+				} catch (UnsupportedOperationException | IOException e) {
+					Files.copy(jarPath, staging.resolve(profileName + ".jar"));
+				}
+			} else {
+				/*
+				 * Abuse some of the vanilla launcher's undefined behavior:
+				 *
+				 * Assumption is the profile name is the same as the maven artifact.
+				 * The profile name we set is a combination of two artifacts (loader + mappings).
+				 * As long as the jar file exists of the same name the launcher won't complain.
+				 */
+				makePretenderJar(staging, profileName);
+			}
+
+			if (Files.exists(dir)) {
+				// A directory cannot be atomically replaced, so move the old one aside first
+				Files.move(dir, old, StandardCopyOption.ATOMIC_MOVE);
+				Files.move(staging, dir, StandardCopyOption.ATOMIC_MOVE);
+				deleteRecursively(old);
+			} else {
+				Files.move(staging, dir, StandardCopyOption.ATOMIC_MOVE);
+			}
+		} finally {
+			if (Files.exists(staging)) {
+				deleteRecursively(staging);
+			}
 		}
 	}
 
+	private static void deleteRecursively(Path dir) throws IOException {
+		Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+				if (exc != null) {
+					throw exc;
+				}
+
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
 	private static void makePretenderJar(Path dir, String profileName) {
 		try {
 			Files.createFile(dir.resolve(profileName + ".jar"));
@@ -210,18 +372,13 @@ public final class InstallClient extends Action<InstallMessageType> {
 		}
 	}
 
-	private static void writeLaunchJson(Path path, String json) {
-		try (Writer writer = new OutputStreamWriter(Files.newOutputStream(path, StandardOpenOption.CREATE_NEW))) {
-			writer.append(json);
-		} catch (IOException e) {
-			throw new UncheckedIOException(e); // Handle via exceptionally
-		}
-	}
-
-	private void installMultimc(Consumer<InstallMessageType> statusTracker) {
+	private void installMultimc(Consumer<InstallMessage> statusTracker) {
+		statusTracker.accept(InstallMessage.phaseStarted(PHASE_RESOLVE));
 		CompletableFuture<MinecraftInstallation.InstallationInfo> installationInfoFuture = MinecraftInstallation.getInfo(GameSide.CLIENT, this.minecraftVersion, this.loaderType, this.loaderVersion, this.intermediaryGen, this.intermediary);
 
-		installationInfoFuture.thenAccept(installationInfo -> {
+		installationInfoFuture.thenCompose(installationInfo -> {
+			statusTracker.accept(InstallMessage.phaseFinished(PHASE_RESOLVE));
+			statusTracker.accept(InstallMessage.phaseStarted(PHASE_PACK));
 			MmcPackCreator.compileMmcZip(
 					Paths.get(this.installDir),
 					this.minecraftVersion,
@@ -232,11 +389,22 @@ public final class InstallClient extends Action<InstallMessageType> {
 					installationInfo.manifest(),
 					this.copyProfilePath
 			);
-			statusTracker.accept(InstallMessageType.SUCCEED);
-		}).exceptionally(e -> {
+			statusTracker.accept(InstallMessage.phaseFinished(PHASE_PACK));
+
+			if (!this.downloadAssets) {
+				return CompletableFuture.<Void>completedFuture(null);
+			}
+
+			// Instances share the assets directory of the launcher, which is only found on its own for Prism Launcher
+			@Nullable
+			Path prismDir = OsPaths.getPrismLauncherDir();
+
+			return LaunchJson.getVanilla(installationInfo.manifest().getVersion(this.minecraftVersion))
+					.thenCompose(vanillaLaunchJson -> this.downloadAssets(vanillaLaunchJson, prismDir != null ? prismDir.resolve("assets") : null, statusTracker));
+		}).thenRun(() -> statusTracker.accept(InstallMessage.succeed())).exceptionally(e -> {
 			eprintln("Failed to generate multimc pack");
 			e.printStackTrace();
-			statusTracker.accept(InstallMessageType.FAIL);
+			statusTracker.accept(InstallMessage.fail());
 			return null;
 		}).join();
 	}
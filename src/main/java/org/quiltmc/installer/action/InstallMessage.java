@@ -0,0 +1,123 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.installer.action;
+
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.installer.DownloadProgress;
+
+/**
+ * A status update sent by an install action.
+ *
+ * <p>An action sends any number of phase and download progress messages, followed by exactly one
+ * {@link InstallMessageType#SUCCEED} or {@link InstallMessageType#FAIL} message once it is done.
+ */
+public final class InstallMessage {
+	private static final InstallMessage SUCCEED = new InstallMessage(InstallMessageType.SUCCEED, null, null, 0, -1, 0, 0);
+	private static final InstallMessage FAIL = new InstallMessage(InstallMessageType.FAIL, null, null, 0, -1, 0, 0);
+
+	private final InstallMessageType type;
+	@Nullable
+	private final String phase;
+	@Nullable
+	private final String artifact;
+	private final long bytes;
+	private final long length;
+	private final long totalBytes;
+	private final double bytesPerSecond;
+
+	private InstallMessage(InstallMessageType type, @Nullable String phase, @Nullable String artifact, long bytes, long length, long totalBytes, double bytesPerSecond) {
+		this.type = type;
+		this.phase = phase;
+		this.artifact = artifact;
+		this.bytes = bytes;
+		this.length = length;
+		this.totalBytes = totalBytes;
+		this.bytesPerSecond = bytesPerSecond;
+	}
+
+	public static InstallMessage succeed() {
+		return SUCCEED;
+	}
+
+	public static InstallMessage fail() {
+		return FAIL;
+	}
+
+	public static InstallMessage phaseStarted(String phase) {
+		return new InstallMessage(InstallMessageType.PHASE_STARTED, phase, null, 0, -1, 0, 0);
+	}
+
+	public static InstallMessage phaseFinished(String phase) {
+		return new InstallMessage(InstallMessageType.PHASE_FINISHED, phase, null, 0, -1, 0, 0);
+	}
+
+	public static InstallMessage downloadProgress(String artifact, long bytes, long length, DownloadProgress progress) {
+		return new InstallMessage(InstallMessageType.DOWNLOAD_PROGRESS, null, artifact, bytes, length, progress.transferred(), progress.bytesPerSecond());
+	}
+
+	public InstallMessageType type() {
+		return this.type;
+	}
+
+	/**
+	 * @return the name of the phase which started or finished
+	 */
+	@Nullable
+	public String phase() {
+		return this.phase;
+	}
+
+	/**
+	 * @return the name of the artifact being downloaded
+	 */
+	@Nullable
+	public String artifact() {
+		return this.artifact;
+	}
+
+	/**
+	 * @return the number of bytes of the artifact downloaded so far
+	 */
+	public long bytes() {
+		return this.bytes;
+	}
+
+	/**
+	 * @return the length of the artifact in bytes, or {@code -1} if unknown
+	 */
+	public long length() {
+		return this.length;
+	}
+
+	/**
+	 * @return the number of bytes downloaded over all artifacts of the installation
+	 */
+	public long totalBytes() {
+		return this.totalBytes;
+	}
+
+	/**
+	 * @return the average download speed of the installation, in bytes per second
+	 */
+	public double bytesPerSecond() {
+		return this.bytesPerSecond;
+	}
+
+	public boolean isDone() {
+		return this.type == InstallMessageType.SUCCEED || this.type == InstallMessageType.FAIL;
+	}
+}
@@ -18,5 +18,8 @@ package org.quiltmc.installer.action;
 
 public enum InstallMessageType {
 	SUCCEED,
-	FAIL
+	FAIL,
+	PHASE_STARTED,
+	PHASE_FINISHED,
+	DOWNLOAD_PROGRESS
 }
@@ -18,6 +18,7 @@ package org.quiltmc.installer.action;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -26,17 +27,20 @@ import java.io.OutputStreamWriter;
 import java.io.StringReader;
 import java.io.UncheckedIOException;
 import java.net.URL;
-import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.Collection;
+import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.OptionalInt;
 import java.util.Set;
@@ -47,25 +51,41 @@ import java.util.jar.Attributes;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import java.util.stream.Collectors;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.zip.ZipFile;
 
 import org.jetbrains.annotations.Nullable;
+import org.quiltmc.installer.ClassDataSharing;
 import org.quiltmc.installer.Connections;
+import org.quiltmc.installer.DownloadProgress;
+import org.quiltmc.installer.DownloadScheduler;
 import org.quiltmc.installer.GameSide;
 import org.quiltmc.installer.Gsons;
+import org.quiltmc.installer.HttpTransport;
 import org.quiltmc.installer.Intermediary;
 import org.quiltmc.installer.LaunchJson;
+import org.quiltmc.installer.LibraryStore;
 import org.quiltmc.installer.LoaderType;
+import org.quiltmc.installer.ServerRemapper;
+import org.quiltmc.installer.ServerScripts;
 import org.quiltmc.installer.Value;
 import org.quiltmc.installer.VersionManifest;
+import org.quiltmc.installer.util.Hashes;
+import org.quiltmc.installer.util.ZipWriter;
 import org.quiltmc.parsers.json.JsonReader;
 
 /**
  * An action which creates the server launch jar and downloads the dedicated server.
  */
-public final class InstallServer extends Action<InstallMessageType> {
+public final class InstallServer extends Action<InstallMessage> {
 	public static final String SERVICES_DIR = "META-INF/services/";
+	private static final String PHASE_RESOLVE = "Resolving versions";
+	private static final String PHASE_LIBRARIES = "Installing libraries";
+	private static final String PHASE_LAUNCH_JAR = "Creating launch jar";
+	private static final String PHASE_SERVER = "Downloading server";
+	private static final String PHASE_REMAP = "Remapping server";
+	private static final String PHASE_CDS = "Creating class data sharing archive";
 
 	private final String minecraftVersion;
 	private final LoaderType loaderType;
@@ -75,24 +95,32 @@ public final class InstallServer extends Action<InstallMessageType> {
 	@Nullable
 	private final Intermediary intermediary;
 	private final String installDir;
-	private final boolean createScripts;
+	@Nullable
+	private final ServerScripts.Options scriptOptions;
 	private final boolean installServer;
+	private final boolean bundle;
+	private final boolean remap;
+	private final boolean trainCds;
 	private MinecraftInstallation.InstallationInfo installationInfo;
 	private Path installedDir;
 
-	InstallServer(String minecraftVersion, LoaderType loaderType, @Nullable String loaderVersion, OptionalInt intermediaryGen, @Nullable Intermediary intermediary, String installDir, boolean createScripts, boolean installServer) {
+	InstallServer(String minecraftVersion, LoaderType loaderType, @Nullable String loaderVersion, OptionalInt intermediaryGen, @Nullable Intermediary intermediary, String installDir, @Nullable ServerScripts.Options scriptOptions, boolean installServer, boolean bundle, boolean remap, boolean trainCds) {
 		this.minecraftVersion = minecraftVersion;
 		this.loaderType = loaderType;
 		this.loaderVersion = loaderVersion;
 		this.intermediaryGen = intermediaryGen;
 		this.intermediary = intermediary;
 		this.installDir = installDir;
-		this.createScripts = createScripts;
+		this.scriptOptions = scriptOptions;
 		this.installServer = installServer;
+		this.bundle = bundle;
+		this.remap = remap;
+		this.trainCds = trainCds;
 	}
 
 	@Override
-	public void run(Consumer<InstallMessageType> statusTracker) {
+	public void run(Consumer<InstallMessage> statusTracker) {
+		DownloadProgress progress = new DownloadProgress((artifact, bytes, length, p) -> statusTracker.accept(InstallMessage.downloadProgress(artifact, bytes, length, p)));
 		Path installDir;
 
 		if (this.installDir == null) {
@@ -103,6 +131,11 @@ public final class InstallServer extends Action<InstallMessageType> {
 		}
 
 		this.installedDir = installDir;
+		// Both jars are built next to the ones in use and only swapped in once everything else succeeded
+		Path launchJar = installDir.resolve(launchJarName(this.loaderType));
+		Path stagedLaunchJar = staged(launchJar);
+		Path serverJar = installDir.resolve("server.jar");
+		Path stagedServerJar = staged(serverJar);
 
 		println(String.format("Installing server launcher at: %s", installDir));
 
@@ -112,12 +145,16 @@ public final class InstallServer extends Action<InstallMessageType> {
 			println(String.format("Installing server launcher for %s with loader %s", this.minecraftVersion, this.loaderVersion));
 		}
 
+		statusTracker.accept(InstallMessage.phaseStarted(PHASE_RESOLVE));
+		Value<List<Path>> libraryPaths = new Value<>();
 		CompletableFuture<MinecraftInstallation.InstallationInfo> installationInfoFuture = MinecraftInstallation.getInfo(GameSide.SERVER, this.minecraftVersion, this.loaderType, this.loaderVersion, this.intermediaryGen, this.intermediary);
 
 		installationInfoFuture.thenCompose(installationInfo -> {
 			this.installationInfo = installationInfo;
 			return LaunchJson.get(GameSide.SERVER, installationInfo.manifest().getVersion(this.minecraftVersion), installationInfo.intermediaryGen(), installationInfo.intermediary(), this.loaderType, installationInfo.loaderVersion());
 		}).thenCompose(launchJson -> {
+			statusTracker.accept(InstallMessage.phaseFinished(PHASE_RESOLVE));
+			statusTracker.accept(InstallMessage.phaseStarted(PHASE_LIBRARIES));
 			println("Installing libraries");
 
 			// Now we read the server's launch json
@@ -159,7 +196,8 @@ public final class InstallServer extends Action<InstallMessageType> {
 					throw new IllegalStateException("No libraries were specified!");
 				}
 
-				Set<CompletableFuture<Path>> libraryFiles = new HashSet<>();
+				// Keep the order of the launch json, which decides which library wins on duplicate classes
+				Set<CompletableFuture<Path>> libraryFiles = new LinkedHashSet<>();
 
 				for (Object library : libraries) {
 					if (!(library instanceof Map)) {
@@ -171,7 +209,7 @@ public final class InstallServer extends Action<InstallMessageType> {
 
 					String name = libraryFields.computeIfAbsent("name", k -> { throw new IllegalStateException("Library had no name!"); });
 					String url = libraryFields.computeIfAbsent("url", k -> { throw new IllegalStateException("Library had no url!"); });
-					CompletableFuture<Path> libraryFile = downloadLibrary(installDir.resolve("libraries"), name, url);
+					CompletableFuture<Path> libraryFile = downloadLibrary(installDir.resolve("libraries"), name, url, libraryFields.get("sha1"), progress);
 
 					libraryFiles.add(libraryFile);
 
@@ -189,12 +227,17 @@ public final class InstallServer extends Action<InstallMessageType> {
 				}
 
 				return CompletableFuture.allOf(libraryFiles.toArray(new CompletableFuture[0])).thenAccept(_v -> {
+					libraryPaths.set(libraryFiles.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+					statusTracker.accept(InstallMessage.phaseFinished(PHASE_LIBRARIES));
+
 					try {
 						if (Files.notExists(installDir)) {
 							Files.createDirectories(installDir);
 						}
 
-						createLaunchJar(installDir.resolve(String.format("%s-server-launch.jar", this.loaderType.getName())), loaderType, mainClass, launchMainClass, libraryFiles);
+						statusTracker.accept(InstallMessage.phaseStarted(PHASE_LAUNCH_JAR));
+						createLaunchJar(stagedLaunchJar, loaderType, mainClass, launchMainClass, libraryFiles, this.bundle);
+						statusTracker.accept(InstallMessage.phaseFinished(PHASE_LAUNCH_JAR));
 					} catch (IOException e) {
 						throw new UncheckedIOException(e);
 					} catch (InterruptedException | ExecutionException e) {
@@ -208,107 +251,260 @@ public final class InstallServer extends Action<InstallMessageType> {
 			try {
 				MinecraftInstallation.InstallationInfo installationInfo = installationInfoFuture.get();
 
-				if (this.createScripts) {
-					println("Creating launch scripts");
-					// TODO: Make scripts
-				}
-
-				// Download Minecraft server and create scripts if specified
+				// Download Minecraft server if specified
 				if (this.installServer) {
 					println("Downloading server");
-					statusTracker.accept(InstallMessageType.SUCCEED);
-					return downloadServer(installDir, minecraftVersion, installationInfo);
+					statusTracker.accept(InstallMessage.phaseStarted(PHASE_SERVER));
+					return downloadServer(serverJar, stagedServerJar, minecraftVersion, installationInfo, progress)
+							.thenRun(() -> statusTracker.accept(InstallMessage.phaseFinished(PHASE_SERVER)));
 				}
 
-				statusTracker.accept(InstallMessageType.SUCCEED);
-				return CompletableFuture.completedFuture(null);
+				return CompletableFuture.<Void>completedFuture(null);
 			} catch (InterruptedException | ExecutionException e) {
 				throw new RuntimeException(e);
 			}
-		}).exceptionally(e -> {
+		}).thenRun(() -> {
+			try {
+				swap(stagedServerJar, serverJar);
+				swap(stagedLaunchJar, launchJar);
+
+				// The archive only works with the class path it was created with, which may have just changed
+				if (Files.deleteIfExists(installDir.resolve(ServerScripts.cdsArchive(launchJar.getFileName().toString()))) && !this.trainCds) {
+					println("Removed the class data sharing archive, it does not match the new installation");
+				}
+
+				if (this.scriptOptions != null) {
+					println("Creating launch scripts");
+					List<String> jvmArgs = ServerScripts.write(installDir, launchJar.getFileName().toString(), this.scriptOptions);
+					println(String.format("Launch scripts use %s", String.join(" ", jvmArgs)));
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e); // Handled via .exceptionally(...)
+			}
+		}).thenRun(() -> {
+			if (this.remap) {
+				statusTracker.accept(InstallMessage.phaseStarted(PHASE_REMAP));
+				remapServer(installDir, this.installationInfo, this.loaderType, libraryPaths.get());
+				statusTracker.accept(InstallMessage.phaseFinished(PHASE_REMAP));
+			}
+
+			if (this.trainCds) {
+				statusTracker.accept(InstallMessage.phaseStarted(PHASE_CDS));
+				trainCds(installDir, this.loaderType);
+				statusTracker.accept(InstallMessage.phaseFinished(PHASE_CDS));
+			}
+		}).thenRun(() -> statusTracker.accept(InstallMessage.succeed())).exceptionally(e -> {
 			e.printStackTrace();
-			statusTracker.accept(InstallMessageType.FAIL);
+
+			try {
+				Files.deleteIfExists(stagedLaunchJar);
+				Files.deleteIfExists(stagedServerJar);
+			} catch (IOException ignored) {
+				// Replaced by the next installation
+			}
+
+			statusTracker.accept(InstallMessage.fail());
 			return null;
 		}).join();
 	}
 
-	public static CompletableFuture<Void> downloadServer(Path installDir, String minecraftVersion, MinecraftInstallation.InstallationInfo info) {
-		return CompletableFuture.supplyAsync(() -> {
-			// Get the info from the manifest
-			VersionManifest.Version version = info.manifest().getVersion(minecraftVersion);
+	/**
+	 * @return the file name of the launch jar for the loader
+	 */
+	public static String launchJarName(LoaderType loaderType) {
+		return String.format("%s-server-launch.jar", loaderType.getName());
+	}
 
-			try {
-				URL url = new URL(version.url());
-				URLConnection connection = Connections.openConnection(url);
+	private static Path staged(Path path) {
+		return path.resolveSibling(path.getFileName() + ".new");
+	}
 
-				InputStreamReader stream = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8);
+	/**
+	 * Moves a staged file into place, if one was staged.
+	 */
+	private static void swap(Path staged, Path target) throws IOException {
+		if (Files.exists(staged)) {
+			Files.move(staged, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+	}
 
-				try (BufferedReader reader = new BufferedReader(stream)) {
-					StringBuilder builder = new StringBuilder();
-					String line;
+	/**
+	 * Remaps the server jar ahead of the first start, which remaps it if this fails.
+	 */
+	private static void remapServer(Path installDir, MinecraftInstallation.InstallationInfo info, LoaderType loaderType, List<Path> libraries) {
+		Path serverJar = installDir.resolve("server.jar");
 
-					while ((line = reader.readLine()) != null) {
-						builder.append(line);
-						builder.append('\n');
-					}
+		if (Files.notExists(serverJar)) {
+			eprintln("Skipping remapping, the server jar does not exist");
+			return;
+		}
 
-					String content = builder.toString();
+		@Nullable
+		Intermediary intermediary = info.intermediary();
+		// Libraries are placed at their maven path, which is how the intermediary is found among them
+		@Nullable
+		Path intermediaryJar = intermediary == null ? null : installDir.resolve("libraries").resolve(LibraryStore.artifactPath(intermediary.getMavenNotation()));
 
-					try (JsonReader json = JsonReader.json(new StringReader(content))) {
-						Object read = Gsons.read(json);
+		if (intermediaryJar != null && !libraries.contains(intermediaryJar)) {
+			intermediaryJar = null;
+		}
 
-						if (!(read instanceof Map)) {
-							throw new IllegalStateException(String.format("launchermeta for %s is not an object!", minecraftVersion));
-						}
+		if (intermediaryJar == null) {
+			eprintln("Skipping remapping, the launch json does not include the intermediary mappings");
+			return;
+		}
 
-						Object rawDownloads = ((Map<?, ?>) read).get("downloads");
+		Path output;
 
-						if (!(rawDownloads instanceof Map)) {
-							throw new IllegalStateException("Downloads in launcher meta must be present and an object");
-						}
+		try {
+			output = ServerRemapper.remappedJar(installDir, loaderType, info.loaderVersion(), serverJar, libraries);
+		} catch (IOException e) {
+			eprintln("Skipping remapping, the loader would not use the remapped jar: " + e.getMessage());
+			return;
+		}
 
-						Object rawServer = ((Map<?, ?>) rawDownloads).get("server");
+		println(String.format("Remapping server jar to %s", output));
 
-						if (!(rawServer instanceof Map)) {
-							throw new IllegalStateException("Server downloads in launcher meta must be present and an object");
-						}
+		try {
+			ServerRemapper.remap(serverJar, intermediaryJar, output, libraries);
+		} catch (IOException e) {
+			eprintln("Failed to remap the server jar: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Creates the class data sharing archive, the installation works fine without one so failures are only reported.
+	 */
+	private static void trainCds(Path installDir, LoaderType loaderType) {
+		if (!ClassDataSharing.isSupported()) {
+			eprintln(String.format("Skipping the class data sharing archive, it requires running the installer with Java %d or newer", ClassDataSharing.MIN_JAVA_VERSION));
+			return;
+		}
+
+		if (Files.notExists(installDir.resolve("server.jar"))) {
+			eprintln("Skipping the class data sharing archive, the training run needs the server jar");
+			return;
+		}
+
+		try {
+			if (!ClassDataSharing.isEulaAccepted(installDir)) {
+				eprintln("Skipping the class data sharing archive, the training run starts the server which requires accepting the eula in eula.txt first");
+				return;
+			}
+
+			if (ClassDataSharing.isPortInUse(installDir)) {
+				eprintln("Skipping the class data sharing archive, the port of the server is in use, is the server running?");
+				return;
+			}
+
+			println("Starting the server once to create the class data sharing archive, this loads or generates its world");
+			Path archive = ClassDataSharing.train(installDir, launchJarName(loaderType));
+			println(String.format("Created class data sharing archive %s", archive));
+		} catch (IOException e) {
+			eprintln("Failed to create the class data sharing archive: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Downloads the server jar unless the existing one is already up to date.
+	 *
+	 * @param serverJar the server jar in use
+	 * @param target where to download the new server jar to, left alone if the existing one is up to date
+	 */
+	public static CompletableFuture<Void> downloadServer(Path serverJar, Path target, String minecraftVersion, MinecraftInstallation.InstallationInfo info, DownloadProgress progress) {
+		// Get the info from the manifest
+		VersionManifest.Version version = info.manifest().getVersion(minecraftVersion);
+
+		if (Connections.isOffline() && Files.exists(serverJar)) {
+			println("Offline, keeping the existing server jar");
+			return CompletableFuture.completedFuture(null);
+		}
+
+		return LaunchJson.getVanilla(version).thenCompose(launcherMeta -> {
+			Object rawDownloads = launcherMeta.get("downloads");
+
+			if (!(rawDownloads instanceof Map)) {
+				throw new IllegalStateException("Downloads in launcher meta must be present and an object");
+			}
+
+			Object rawServer = ((Map<?, ?>) rawDownloads).get("server");
 
-						Object rawServerUrl = ((Map<?, ?>) rawServer).get("url");
+			if (!(rawServer instanceof Map)) {
+				throw new IllegalStateException("Server downloads in launcher meta must be present and an object");
+			}
+
+			Object rawServerUrl = ((Map<?, ?>) rawServer).get("url");
+			Object rawServerSha1 = ((Map<?, ?>) rawServer).get("sha1");
+
+			if (rawServerUrl == null) {
+				throw new IllegalStateException("Server download url must be present");
+			}
+
+			return DownloadScheduler.submit(rawServerUrl.toString(), () -> {
+				try {
+					if (rawServerSha1 != null && Files.exists(serverJar) && rawServerSha1.toString().equalsIgnoreCase(Hashes.sha1(serverJar))) {
+						println(String.format("Server jar for %s is already up to date", minecraftVersion));
+						return null;
+					}
+
+					if (Connections.isOffline()) {
+						throw new IOException(String.format("No server jar for %s exists and it cannot be downloaded in offline mode", minecraftVersion));
+					}
+
+					println(String.format("Downloading %s server jar from %s", minecraftVersion, rawServerUrl.toString()));
 
-						if (rawServerUrl == null) {
-							throw new IllegalStateException("Server download url must be present");
+					Files.createDirectories(target.getParent());
+					Path tmp = Files.createTempFile(target.getParent(), "server", ".jar.tmp");
+
+					try {
+						MessageDigest digest = Hashes.sha1();
+						try (HttpTransport.Response response = Connections.get(new URL(rawServerUrl.toString()));
+								InputStream serverDownloadStream = new DigestInputStream(progress.track("server.jar", response.contentLength(), response.body()), digest)) {
+							Files.copy(serverDownloadStream, tmp, StandardCopyOption.REPLACE_EXISTING);
 						}
 
-						println(String.format("Downloading %s server jar from %s", minecraftVersion, rawServerUrl.toString()));
+						String hash = Hashes.toHex(digest.digest());
 
-						try (InputStream serverDownloadStream = Connections.openConnection(new URL(rawServerUrl.toString())).getInputStream()) {
-							Files.copy(serverDownloadStream, installDir.resolve("server.jar"), StandardCopyOption.REPLACE_EXISTING);
+						if (rawServerSha1 != null && !rawServerSha1.toString().equalsIgnoreCase(hash)) {
+							throw new IOException(String.format("Downloaded server jar has hash %s, expected %s", hash, rawServerSha1));
 						}
+
+						Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+					} finally {
+						Files.deleteIfExists(tmp);
 					}
 
 					return null;
+				} catch (IOException e) {
+					throw new UncheckedIOException(e); // Handled via .exceptionally(...)
 				}
-			} catch (IOException e) {
-				throw new UncheckedIOException(e); // Handled via .exceptionally(...)
-			}
+			});
 		});
 	}
 
-	private static CompletableFuture<Path> downloadLibrary(Path librariesDir, String name, String url) {
-		return CompletableFuture.supplyAsync(() -> {
+	/**
+	 * Places a library at its maven path in the libraries directory, unless it is already there and up to date.
+	 */
+	static CompletableFuture<Path> downloadLibrary(Path librariesDir, String name, String url, @Nullable String sha1, DownloadProgress progress) {
+		return DownloadScheduler.submit(url, () -> {
 			try {
-				Path path = librariesDir.resolve(splitArtifact(name));
-				// Convert to maven url
-				String rawUrl = mavenToUrl(url, name);
-				println("Downloading library at: " + rawUrl);
+				Path path = librariesDir.resolve(LibraryStore.artifactPath(name));
 
-				URLConnection connection = Connections.openConnection(new URL(rawUrl));
+				if (Files.exists(path)) {
+					@Nullable
+					String expectedSha1 = sha1 != null ? sha1 : LibraryStore.knownHash(name);
 
-				try (InputStream stream = connection.getInputStream()) {
-					Files.createDirectories(path.getParent());
-					Files.copy(stream, path, StandardCopyOption.REPLACE_EXISTING);
+					if (expectedSha1 == null ? Connections.isOffline() : expectedSha1.equalsIgnoreCase(Hashes.sha1(path))) {
+						// Already installed and up to date, or we have no way of checking
+						return path;
+					}
 				}
 
+				// Libraries are shared between installations through the library store,
+				// so this only hits the network the first time a library is seen
+				println("Installing library " + name);
+				LibraryStore.materialize(name, url, sha1, path, progress);
+
 				return path;
 			} catch (IOException e) {
 				throw new UncheckedIOException(e);
@@ -317,28 +513,121 @@ public final class InstallServer extends Action<InstallMessageType> {
 	}
 
 	// Combine all the jars into one file for the server-launch.jar
-	private static void createLaunchJar(Path path, LoaderType loaderType, Value<String> mainClass, Value<String> launchMainClass, Set<CompletableFuture<Path>> libraries) throws IOException, ExecutionException, InterruptedException {
-		if (Files.exists(path)) {
-			Files.delete(path);
+	private static void createLaunchJar(Path path, LoaderType loaderType, Value<String> mainClass, Value<String> launchMainClass, Set<CompletableFuture<Path>> libraries, boolean bundle) throws IOException, ExecutionException, InterruptedException {
+		List<Path> libraryPaths = libraries.stream().map(CompletableFuture::join).collect(Collectors.toList());
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, launchMainClass.get());
+
+		if (bundle) {
+			if (isMultiRelease(libraryPaths)) {
+				manifest.getMainAttributes().put(new Attributes.Name("Multi-Release"), "true");
+			}
+		} else {
+			manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, libraryPaths.stream().map(p -> path.getParent().relativize(p).toString().replace("\\", "/")).collect(Collectors.joining(" ")));
 		}
 
-		try (ZipOutputStream zipStream = new ZipOutputStream(Files.newOutputStream(path, StandardOpenOption.CREATE_NEW))) {
-			zipStream.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
-			Manifest manifest = new Manifest();
-			manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
-			manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, launchMainClass.get());
-			manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, libraries.stream().map(CompletableFuture::join).map(p -> path.getParent().relativize(p).toString().replace("\\", "/")).collect(Collectors.joining(" ")));
-			manifest.write(zipStream);
-			zipStream.closeEntry();
+		try (ZipWriter zip = new ZipWriter(path, Deflater.DEFAULT_COMPRESSION)) {
+			ByteArrayOutputStream manifestBytes = new ByteArrayOutputStream();
+			manifest.write(manifestBytes);
+			zip.write(JarFile.MANIFEST_NAME, manifestBytes.toByteArray());
+
+			Set<String> written = new HashSet<>();
+			written.add(JarFile.MANIFEST_NAME);
 
 			if (loaderType == LoaderType.FABRIC) {
-				zipStream.putNextEntry(new ZipEntry("fabric-server-launch.properties"));
-				zipStream.write(("launch.mainClass=" + mainClass.get() + "\n").getBytes(StandardCharsets.UTF_8));
-				zipStream.closeEntry();
+				zip.write("fabric-server-launch.properties", ("launch.mainClass=" + mainClass.get() + "\n").getBytes(StandardCharsets.UTF_8));
+				written.add("fabric-server-launch.properties");
 			}
+
+			if (bundle) {
+				bundleLibraries(zip, libraryPaths, written);
+			}
+
+			zip.commit();
 		}
 	}
 
+	/**
+	 * Copies the contents of every library into the launch jar.
+	 *
+	 * <p>Service definitions are merged, signatures are dropped since the merged jar no longer matches them,
+	 * and for any other entry present in several libraries the first one wins.
+	 */
+	private static void bundleLibraries(ZipWriter zip, List<Path> libraries, Set<String> written) throws IOException {
+		Map<String, Set<String>> services = new LinkedHashMap<>();
+		int duplicates = 0;
+
+		for (Path library : libraries) {
+			try (ZipFile file = new ZipFile(library.toFile())) {
+				Enumeration<? extends ZipEntry> entries = file.entries();
+
+				while (entries.hasMoreElements()) {
+					ZipEntry entry = entries.nextElement();
+					String name = entry.getName();
+
+					if (name.startsWith(SERVICES_DIR) && !entry.isDirectory() && name.length() > SERVICES_DIR.length()) {
+						try (InputStream stream = file.getInputStream(entry)) {
+							parseServiceDefinition(name, stream, services);
+						}
+					} else if (isBundleExcluded(name)) {
+						continue;
+					} else if (!written.add(name)) {
+						if (!entry.isDirectory()) {
+							duplicates++;
+						}
+					} else if (entry.isDirectory()) {
+						zip.writeDirectory(name);
+					} else {
+						try (InputStream stream = file.getInputStream(entry)) {
+							zip.copy(entry, stream);
+						}
+					}
+				}
+			}
+		}
+
+		for (Map.Entry<String, Set<String>> service : services.entrySet()) {
+			ByteArrayOutputStream definition = new ByteArrayOutputStream();
+			writeServiceDefinition(service.getValue(), definition);
+			zip.write(service.getKey(), definition.toByteArray());
+		}
+
+		println(String.format("Bundled %d libraries, skipping %d duplicate entries", libraries.size(), duplicates));
+	}
+
+	private static boolean isBundleExcluded(String name) {
+		if (name.equals("module-info.class") || (name.startsWith("META-INF/versions/") && name.endsWith("/module-info.class"))) {
+			// The merged jar is not any of these modules
+			return true;
+		}
+
+		if (!name.startsWith("META-INF/") || name.indexOf('/', "META-INF/".length()) != -1) {
+			return false;
+		}
+
+		String upper = name.toUpperCase(Locale.ROOT);
+
+		return upper.equals(JarFile.MANIFEST_NAME) || upper.equals("META-INF/INDEX.LIST")
+				|| upper.endsWith(".SF") || upper.endsWith(".RSA") || upper.endsWith(".DSA") || upper.endsWith(".EC")
+				|| upper.startsWith("META-INF/SIG-");
+	}
+
+	private static boolean isMultiRelease(List<Path> libraries) throws IOException {
+		for (Path library : libraries) {
+			try (JarFile jar = new JarFile(library.toFile(), false)) {
+				@Nullable
+				Manifest manifest = jar.getManifest();
+
+				if (manifest != null && "true".equalsIgnoreCase(manifest.getMainAttributes().getValue("Multi-Release"))) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
 	private static void parseServiceDefinition(String name, InputStream rawIs, Map<String, Set<String>> services) throws IOException {
 		Collection<String> out = null;
 		BufferedReader reader = new BufferedReader(new InputStreamReader(rawIs, StandardCharsets.UTF_8));
@@ -375,20 +664,6 @@ public final class InstallServer extends Action<InstallMessageType> {
 		writer.flush();
 	}
 
-	private static String mavenToUrl(String mavenUrl, String artifactNotation) {
-		return mavenUrl + splitArtifact(artifactNotation);
-	}
-
-	private static String splitArtifact(String artifactNotation) {
-		String[] parts = artifactNotation.split(":", 3);
-		String path = parts[0].replace(".", "/") + // Group
-				"/" + parts[1] +									// Artifact name
-				"/" + parts[2] +									// Version
-				"/" + parts[1] +
-				"-" + parts[2] + ".jar";							// Artifact
-		return path;
-	}
-
 	public String minecraftVersion() {
 		return this.minecraftVersion;
 	}
@@ -25,6 +25,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.function.Consumer;
 
+import org.quiltmc.installer.IntermediaryGenerations;
 import org.quiltmc.installer.LoaderType;
 import org.quiltmc.installer.Localization;
 import org.quiltmc.installer.ParseException;
@@ -52,6 +53,13 @@ public final class ListVersions extends Action<Void> {
 
 	@Override
 	public void run(Consumer<Void> statusTracker) {
+		try {
+			IntermediaryGenerations.validate(this.intermediaryGen).join();
+		} catch (CompletionException e) {
+			eprintln(e.getCause().getMessage());
+			return;
+		}
+
 		CompletableFuture<Void> versionManifest = VersionManifest.create(this.intermediaryGen)
 				.thenAccept(this::displayMinecraftVerions)
 				.exceptionally(this::handleMinecraftVersionExceptions);
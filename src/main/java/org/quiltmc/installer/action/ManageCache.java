@@ -0,0 +1,96 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.installer.action;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.quiltmc.installer.HttpCache;
+
+/**
+ * An action which lists or prunes the entries of the http cache.
+ */
+public final class ManageCache extends Action<Void> {
+	private static final DateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+
+	private final Mode mode;
+	private final long maxSize;
+	private final long maxAge;
+
+	ManageCache(Mode mode, long maxSize, long maxAge) {
+		this.mode = mode;
+		this.maxSize = maxSize;
+		this.maxAge = maxAge;
+	}
+
+	@Override
+	public void run(Consumer<Void> statusTracker) {
+		try {
+			switch (this.mode) {
+			case LIST:
+				this.list();
+				break;
+			case PRUNE:
+				this.prune(this.maxSize, this.maxAge);
+				break;
+			case CLEAR:
+				this.prune(0, 0);
+				break;
+			default:
+				throw new RuntimeException("don't know how to manage the cache with mode " + this.mode);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void list() throws IOException {
+		List<HttpCache.Entry> entries = HttpCache.entries();
+		long size = 0;
+
+		println(String.format("Cache directory: %s", HttpCache.getDirectory()));
+
+		for (HttpCache.Entry entry : entries) {
+			size += entry.size();
+			println(String.format("  %s  %10d B  %s", DATE_FORMAT.format(new Date(entry.lastUsed())), entry.size(), entry.url()));
+		}
+
+		println(String.format("%d entries, %d bytes total", entries.size(), size));
+	}
+
+	private void prune(long maxSize, long maxAge) throws IOException {
+		List<HttpCache.Entry> removed = HttpCache.prune(maxSize, maxAge);
+		long size = 0;
+
+		for (HttpCache.Entry entry : removed) {
+			size += entry.size();
+		}
+
+		println(String.format("Removed %d entries, freeing %d bytes", removed.size(), size));
+	}
+
+	public enum Mode {
+		LIST,
+		PRUNE,
+		CLEAR
+	}
+}
@@ -26,6 +26,7 @@ import java.util.concurrent.ExecutionException;
 import org.jetbrains.annotations.Nullable;
 import org.quiltmc.installer.GameSide;
 import org.quiltmc.installer.Intermediary;
+import org.quiltmc.installer.IntermediaryGenerations;
 import org.quiltmc.installer.LoaderType;
 import org.quiltmc.installer.OrnitheMeta;
 import org.quiltmc.installer.VersionManifest;
@@ -40,6 +41,9 @@ public final class MinecraftInstallation {
 	 * @return a future containing the loader version to use
 	 */
 	public static CompletableFuture<InstallationInfo> getInfo(GameSide side, String gameVersion, LoaderType loaderType, @Nullable String loaderVersion, OptionalInt intermediaryGen, @Nullable Intermediary intermediaryVersion) {
+		// Start looking up the generations even when none was specified, installs need the stable one to name profiles
+		IntermediaryGenerations.get();
+		CompletableFuture<Void> intermediaryGenValid = IntermediaryGenerations.validate(intermediaryGen);
 		CompletableFuture<VersionManifest> versionManifest = VersionManifest.create(intermediaryGen).thenApply(manifest -> {
 			if (manifest.getVersion(gameVersion) != null) {
 				return manifest;
@@ -90,7 +94,7 @@ public final class MinecraftInstallation {
 			return versions.stream().filter(version -> !version.contains("-")).findFirst().get();
 		});
 
-		return CompletableFuture.allOf(versionManifest, intermediary, loaderVersionFuture).thenApply(_v -> {
+		return CompletableFuture.allOf(intermediaryGenValid, versionManifest, intermediary, loaderVersionFuture).thenApply(_v -> {
 			try {
 				return new InstallationInfo(loaderVersionFuture.get(), intermediaryGen, intermediary.get(), versionManifest.get());
 			} catch (InterruptedException | ExecutionException e) {
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.installer.action;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.installer.Gsons;
+import org.quiltmc.installer.LoaderType;
+import org.quiltmc.parsers.json.JsonReader;
+
+/**
+ * An action which moves an existing server installation to another loader or Minecraft version.
+ *
+ * <p>The libraries the installation already has are kept, so only the libraries which changed are downloaded.
+ * The new launch jar and server jar are only swapped in once everything else is in place, after which the libraries
+ * the launch jar no longer references are removed. The server jar is always replaced when it belongs to another
+ * Minecraft version, since the new launch jar does not work with it.
+ */
+public final class UpgradeServer extends Action<InstallMessage> {
+	private static final String LIBRARIES_DIR = "libraries";
+
+	private final String minecraftVersion;
+	private final LoaderType loaderType;
+	@Nullable
+	private final String loaderVersion;
+	private final OptionalInt intermediaryGen;
+	@Nullable
+	private final String installDir;
+	private final boolean installServer;
+	private final boolean bundle;
+
+	UpgradeServer(String minecraftVersion, LoaderType loaderType, @Nullable String loaderVersion, OptionalInt intermediaryGen, @Nullable String installDir, boolean installServer, boolean bundle) {
+		this.minecraftVersion = minecraftVersion;
+		this.loaderType = loaderType;
+		this.loaderVersion = loaderVersion;
+		this.intermediaryGen = intermediaryGen;
+		this.installDir = installDir;
+		this.installServer = installServer;
+		this.bundle = bundle;
+	}
+
+	@Override
+	public void run(Consumer<InstallMessage> statusTracker) {
+		Path installDir = this.installDir == null ? Paths.get(System.getProperty("user.dir")).resolve("server") : Paths.get(this.installDir);
+		Path launchJar = installDir.resolve(InstallServer.launchJarName(this.loaderType));
+
+		if (Files.notExists(launchJar)) {
+			eprintln(String.format("No %s server installation found at %s, install one first", this.loaderType.getLocalizedName(), installDir));
+			statusTracker.accept(InstallMessage.fail());
+			return;
+		}
+
+		Set<String> previous;
+
+		try {
+			previous = readClassPath(launchJar);
+		} catch (IOException e) {
+			eprintln(String.format("Failed to read the launch jar %s: %s", launchJar, e.getMessage()));
+			statusTracker.accept(InstallMessage.fail());
+			return;
+		}
+
+		println(String.format("Upgrading server installation at %s, which references %d libraries", installDir, previous.size()));
+
+		boolean installServer = this.installServer;
+		Path serverJar = installDir.resolve("server.jar");
+
+		if (!installServer && Files.exists(serverJar) && !this.minecraftVersion.equals(readServerVersion(serverJar))) {
+			// An up to date server jar is kept as is, so this only downloads anything when the version changed
+			println(String.format("The server jar may not be for %s, updating it as well", this.minecraftVersion));
+			installServer = true;
+		}
+
+		// The install keeps every library which is present and up to date, and swaps in the new jars as its last step
+		InstallServer install = new InstallServer(this.minecraftVersion, this.loaderType, this.loaderVersion, this.intermediaryGen, null,
+				installDir.toString(), null, installServer, this.bundle, false, false);
+		boolean[] succeeded = new boolean[1];
+
+		install.run(message -> {
+			if (message.type() == InstallMessageType.SUCCEED) {
+				succeeded[0] = true;
+			} else if (message.type() != InstallMessageType.FAIL) {
+				statusTracker.accept(message);
+			}
+		});
+
+		if (!succeeded[0]) {
+			eprintln("Upgrade failed, the previous launch jar and server jar were left in place");
+			statusTracker.accept(InstallMessage.fail());
+			return;
+		}
+
+		try {
+			Set<String> current = readClassPath(launchJar);
+			Set<String> added = new LinkedHashSet<>(current);
+			added.removeAll(previous);
+			Set<String> removed = new LinkedHashSet<>(previous);
+			removed.removeAll(current);
+
+			for (String entry : removed) {
+				deleteLibrary(installDir, entry);
+			}
+
+			println(String.format("Upgraded server installation: %d libraries added, %d removed, %d kept", added.size(), removed.size(), current.size() - added.size()));
+		} catch (IOException e) {
+			// The installation itself is upgraded at this point
+			eprintln("Failed to remove stale libraries: " + e.getMessage());
+		}
+
+		statusTracker.accept(InstallMessage.succeed());
+	}
+
+	/**
+	 * @return the Minecraft version of a server jar, or {@code null} if it does not say, which is the case before 1.14
+	 */
+	@Nullable
+	private static String readServerVersion(Path serverJar) {
+		try (JarFile jar = new JarFile(serverJar.toFile(), false)) {
+			@Nullable
+			ZipEntry entry = jar.getEntry("version.json");
+
+			if (entry == null) {
+				return null;
+			}
+
+			try (Reader reader = new InputStreamReader(jar.getInputStream(entry), StandardCharsets.UTF_8)) {
+				Object version = Gsons.read(JsonReader.json(reader));
+				Object id = version instanceof Map ? ((Map<?, ?>) version).get("id") : null;
+
+				return id instanceof String ? (String) id : null;
+			}
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return the entries of the class path of the launch jar, relative to the installation directory
+	 */
+	private static Set<String> readClassPath(Path launchJar) throws IOException {
+		try (JarFile jar = new JarFile(launchJar.toFile(), false)) {
+			@Nullable
+			Manifest manifest = jar.getManifest();
+			@Nullable
+			String classPath = manifest == null ? null : manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH);
+
+			if (classPath == null || classPath.trim().isEmpty()) {
+				// Bundled launch jars contain their libraries
+				return Collections.emptySet();
+			}
+
+			Set<String> entries = new LinkedHashSet<>();
+			Collections.addAll(entries, classPath.trim().split("\\s+"));
+			return entries;
+		}
+	}
+
+	private static void deleteLibrary(Path installDir, String entry) throws IOException {
+		Path librariesDir = installDir.resolve(LIBRARIES_DIR).normalize();
+		Path library = installDir.resolve(entry).normalize();
+
+		if (!library.startsWith(librariesDir)) {
+			// Never delete anything the installer did not put there
+			return;
+		}
+
+		println("Removing stale library " + entry);
+		Files.deleteIfExists(library);
+
+		// Clean up the now empty version, artifact and group directories
+		for (Path dir = library.getParent(); dir != null && !dir.equals(librariesDir); dir = dir.getParent()) {
+			try {
+				Files.deleteIfExists(dir);
+			} catch (DirectoryNotEmptyException e) {
+				break;
+			}
+		}
+	}
+}
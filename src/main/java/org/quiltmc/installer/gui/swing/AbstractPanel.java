@@ -18,12 +18,19 @@ package org.quiltmc.installer.gui.swing;
 
 import java.awt.*;
 import java.io.File;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.swing.BoxLayout;
+import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JComponent;
 import javax.swing.JEditorPane;
@@ -31,27 +38,39 @@ import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
 import javax.swing.event.HyperlinkEvent;
 
 import org.jetbrains.annotations.Nullable;
+import org.quiltmc.installer.DownloadProgress;
 import org.quiltmc.installer.GameSide;
 import org.quiltmc.installer.Intermediary;
 import org.quiltmc.installer.LoaderType;
 import org.quiltmc.installer.Localization;
 import org.quiltmc.installer.VersionManifest;
+import org.quiltmc.installer.action.Action;
+import org.quiltmc.installer.action.InstallMessage;
 import org.quiltmc.installer.action.InstallMessageType;
 
 abstract class AbstractPanel extends JPanel {
 	final SwingInstaller gui;
+	private final GameSide side;
+	private final JProgressBar progressBar = new JProgressBar();
 	@Nullable
 	private VersionManifest manifest;
-	@Nullable
-	private Map<LoaderType, List<String>> loaderVersions;
+	private final Map<LoaderType, VersionIndex> loaderVersions = new EnumMap<>(LoaderType.class);
 	@Nullable
 	private Map<String, Intermediary> intermediaryVersions;
+	@Nullable
+	private VersionIndex minecraftVersions;
+	private final Set<LoaderType> requestedLoaderTypes = EnumSet.noneOf(LoaderType.class);
+	private boolean versionsRequested;
+	private boolean installing;
 
-	AbstractPanel(SwingInstaller gui) {
+	AbstractPanel(SwingInstaller gui, GameSide side) {
 		this.gui = gui;
+		this.side = side;
 
 		this.setLayout(new BoxLayout(this, BoxLayout.PAGE_AXIS));
 	}
@@ -62,27 +81,160 @@ abstract class AbstractPanel extends JPanel {
 		return rowPanel;
 	}
 
-	void receiveVersions(GameSide side, VersionManifest manifest, Map<LoaderType, List<String>> loaderVersions, List<Intermediary> intermediaryVersions) {
-		this.manifest = manifest;
-		this.loaderVersions = loaderVersions;
-		this.intermediaryVersions = intermediaryVersions.stream()
-				.filter(intermediary -> side.versionMatches(intermediary.getVersion()))
-				.collect(Collectors.toMap(intermediary -> side.stripFromVersion(intermediary.getVersion()), Function.identity()));
+	void addProgressRow() {
+		JComponent row = this.addRow();
+
+		row.add(this.progressBar);
+		this.progressBar.setPreferredSize(new Dimension(500, 22));
+		this.progressBar.setStringPainted(true);
+		this.progressBar.setString("");
 	}
 
-	@Nullable
-	VersionManifest manifest() {
-		return this.manifest;
+	/**
+	 * Runs an install action off the event dispatch thread, showing its progress in the progress bar.
+	 *
+	 * @param action the install action
+	 * @param installButton the button which started the installation, disabled until it finishes
+	 * @param onFinished called on the event dispatch thread with the result of the installation
+	 */
+	void runInstall(Action<InstallMessage> action, JButton installButton, Consumer<InstallMessageType> onFinished) {
+		this.installing = true;
+		installButton.setEnabled(false);
+		this.progressBar.setIndeterminate(true);
+
+		Thread thread = new Thread(() -> {
+			AtomicReference<InstallMessageType> result = new AtomicReference<>(InstallMessageType.FAIL);
+
+			try {
+				action.run(message -> {
+					if (message.isDone()) {
+						result.set(message.type());
+					} else {
+						SwingUtilities.invokeLater(() -> this.showProgress(message));
+					}
+				});
+			} catch (Throwable t) {
+				SwingUtilities.invokeLater(() -> displayError(this, t));
+			}
+
+			SwingUtilities.invokeLater(() -> {
+				this.progressBar.setIndeterminate(false);
+				this.progressBar.setValue(0);
+				this.progressBar.setString("");
+				this.installing = false;
+				installButton.setEnabled(this.canInstall());
+				onFinished.accept(result.get());
+			});
+		}, "Install");
+
+		thread.start();
 	}
 
-	@Nullable
-	public Map<LoaderType, List<String>> loaderVersions() {
-		return this.loaderVersions;
+	private void showProgress(InstallMessage message) {
+		switch (message.type()) {
+		case PHASE_STARTED:
+			this.progressBar.setIndeterminate(true);
+			this.progressBar.setString(message.phase());
+			break;
+		case DOWNLOAD_PROGRESS:
+			if (message.length() > 0) {
+				this.progressBar.setIndeterminate(false);
+				this.progressBar.setMaximum(1000);
+				this.progressBar.setValue((int) (message.bytes() * 1000 / message.length()));
+			} else {
+				this.progressBar.setIndeterminate(true);
+			}
+
+			this.progressBar.setString(Localization.createFrom("gui.install.progress.download",
+					message.artifact(),
+					DownloadProgress.formatBytes(message.totalBytes()),
+					DownloadProgress.formatBytes(message.bytesPerSecond())
+			));
+			break;
+		default:
+		}
 	}
 
-	@Nullable 
+	/**
+	 * Requests the versions shown by this panel, the first time it is shown.
+	 */
+	void loadVersions() {
+		if (this.versionsRequested) {
+			return;
+		}
+
+		this.versionsRequested = true;
+
+		this.gui.versionLoader().manifest(manifest -> {
+			this.manifest = manifest;
+			this.indexMinecraftVersions();
+		});
+		this.gui.versionLoader().intermediaryVersions(intermediaryVersions -> {
+			this.intermediaryVersions = intermediaryVersions.stream()
+					.filter(intermediary -> this.side.versionMatches(intermediary.getVersion()))
+					.collect(Collectors.toMap(intermediary -> this.side.stripFromVersion(intermediary.getVersion()), Function.identity()));
+			this.indexMinecraftVersions();
+		});
+		this.loadLoaderVersions();
+	}
+
+	private void indexMinecraftVersions() {
+		if (this.manifest != null && this.intermediaryVersions != null) {
+			this.minecraftVersions = VersionIndex.minecraft(this.manifest, this.intermediaryVersions);
+			this.receiveMinecraftVersions();
+		}
+	}
+
+	/**
+	 * Shows the loader versions of the selected loader type, requesting them if this is the first time it was selected.
+	 */
+	void loadLoaderVersions() {
+		LoaderType type = this.loaderType();
+
+		// Shows that the versions are loading if they have not arrived yet
+		this.receiveLoaderVersions();
+
+		if (!this.requestedLoaderTypes.add(type)) {
+			return;
+		}
+
+		this.gui.versionLoader().loaderVersions(type, versions -> {
+			this.loaderVersions.put(type, VersionIndex.loader(versions));
+
+			if (type == this.loaderType()) {
+				this.receiveLoaderVersions();
+			}
+		});
+	}
+
+	/**
+	 * Called whenever the Minecraft versions or the intermediaries have been loaded or updated.
+	 */
+	abstract void receiveMinecraftVersions();
+
+	/**
+	 * Called whenever the loader versions of the selected loader type have been loaded or updated, or another loader
+	 * type was selected. The versions are {@code null} while they are still loading.
+	 */
+	abstract void receiveLoaderVersions();
+
+	boolean minecraftVersionsLoaded() {
+		return this.minecraftVersions != null;
+	}
+
+	/**
+	 * @return whether everything needed to install has been loaded, and no installation is running
+	 */
+	boolean canInstall() {
+		return !this.installing && this.minecraftVersionsLoaded() && this.loaderVersions(this.loaderType()) != null;
+	}
+
+	@Nullable
 	public List<String> loaderVersions(LoaderType type) {
-		return this.loaderVersions == null ? null : this.loaderVersions.get(type);
+		@Nullable
+		VersionIndex index = this.loaderVersions.get(type);
+
+		return index == null ? null : index.all();
 	}
 
 	@Nullable
@@ -92,32 +244,44 @@ abstract class AbstractPanel extends JPanel {
 
 	abstract LoaderType loaderType();
 
-	static void populateMinecraftVersions(GameSide side, JComboBox<String> comboBox, VersionManifest manifest, Map<String, Intermediary> intermediaryVersions, boolean snapshots) {
-		// Setup the combo box for Minecraft version selection
-		comboBox.removeAllItems();
+	/**
+	 * Creates a combo box for versions, which jumps to the version typed while it has focus.
+	 */
+	static JComboBox<String> createVersionSelector() {
+		VersionComboBoxModel model = new VersionComboBoxModel();
+		JComboBox<String> comboBox = new JComboBox<>(model);
 
-		manifest.parallelStream().filter(version -> version.type().equals("release")
-						|| (version.type().equals("snapshot") && snapshots)
-						|| (version.type().equals("old_beta") && snapshots)
-						|| (version.type().equals("old_alpha") && snapshots)
-						|| (version.type().equals("alpha_server") && snapshots)
-						|| (version.type().equals("classic_server") && snapshots))
-				.map(VersionManifest.Version::id)
-				.filter(intermediaryVersions::containsKey)
-				.forEachOrdered(comboBox::addItem);
+		comboBox.setKeySelectionManager(model.keySelectionManager());
+		showLoading(comboBox);
 
-		comboBox.setEnabled(true);
+		return comboBox;
 	}
 
-	static void populateLoaderVersions(GameSide side, JComboBox<String> comboBox, List<String> loaderVersions, boolean betas) {
-		comboBox.removeAllItems();
+	/**
+	 * Shows the Minecraft versions, which must have been loaded.
+	 */
+	void populateMinecraftVersions(JComboBox<String> comboBox, boolean snapshots) {
+		showVersions(comboBox, this.minecraftVersions.get(snapshots));
+	}
 
-		for (String loaderVersion : loaderVersions) {
-			if (betas || !loaderVersion.contains("-")) {
-				comboBox.addItem(loaderVersion);
-			}
-		}
+	/**
+	 * Shows the loader versions of the selected loader type, which must have been loaded.
+	 */
+	void populateLoaderVersions(JComboBox<String> comboBox, boolean betas) {
+		showVersions(comboBox, this.loaderVersions.get(this.loaderType()).get(betas));
+	}
 
+	static void showLoading(JComboBox<String> comboBox) {
+		((VersionComboBoxModel) comboBox.getModel()).setVersions(Collections.singletonList(Localization.get("gui.install.loading")));
+		comboBox.setEnabled(false);
+	}
+
+	/**
+	 * Replaces the versions in a combo box created by {@link #createVersionSelector()} all at once, keeping the
+	 * selected version if it is still there, such as when newer versions were fetched.
+	 */
+	private static void showVersions(JComboBox<String> comboBox, List<String> versions) {
+		((VersionComboBoxModel) comboBox.getModel()).setVersions(versions);
 		comboBox.setEnabled(true);
 	}
 
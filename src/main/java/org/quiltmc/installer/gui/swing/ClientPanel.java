@@ -20,9 +20,7 @@ import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.awt.event.ItemEvent;
 import java.util.List;
-import java.util.Map;
 import java.util.OptionalInt;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 import javax.swing.JButton;
@@ -36,6 +34,7 @@ import javax.swing.JTextField;
 import org.jetbrains.annotations.Nullable;
 import org.quiltmc.installer.*;
 import org.quiltmc.installer.action.Action;
+import org.quiltmc.installer.action.InstallMessage;
 import org.quiltmc.installer.action.InstallMessageType;
 
 final class ClientPanel extends AbstractPanel implements Consumer<InstallMessageType> {
@@ -57,27 +56,25 @@ final class ClientPanel extends AbstractPanel implements Consumer<InstallMessage
 	private boolean copyProfilePath;
 
 	ClientPanel(SwingInstaller gui) {
-		super(gui);
+		super(gui, GameSide.CLIENT);
 
 		// Minecraft version
 		{
 			JComponent row1 = this.addRow();
 
 			row1.add(new JLabel(Localization.get("gui.game.version")));
-			row1.add(this.minecraftVersionSelector = new JComboBox<>());
+			row1.add(this.minecraftVersionSelector = createVersionSelector());
 			// Set the preferred size so we do not need to repack the window
 			// The chosen width is so we are wider than b1.9-pre4-201110131434
 			this.minecraftVersionSelector.setPreferredSize(new Dimension(220, 26));
-			this.minecraftVersionSelector.addItem(Localization.get("gui.install.loading"));
-			this.minecraftVersionSelector.setEnabled(false);
 
 			row1.add(this.showSnapshotsCheckBox = new JCheckBox(Localization.get("gui.game.version.snapshots")));
 			this.showSnapshotsCheckBox.setEnabled(false);
 			this.showSnapshotsCheckBox.addItemListener(e -> {
 				// Versions are already loaded, repopulate the combo box
-				if (this.manifest() != null) {
+				if (this.minecraftVersionsLoaded()) {
 					this.showSnapshots = e.getStateChange() == ItemEvent.SELECTED;
-					populateMinecraftVersions(GameSide.CLIENT, this.minecraftVersionSelector, this.manifest(), this.intermediaryVersions(), this.showSnapshots);
+					this.populateMinecraftVersions(this.minecraftVersionSelector, this.showSnapshots);
 				}
 			});
 		}
@@ -113,23 +110,19 @@ final class ClientPanel extends AbstractPanel implements Consumer<InstallMessage
 			JComponent row3 = this.addRow();
 
 			row3.add(new JLabel(Localization.get("gui.loader.version")));
-			row3.add(this.loaderVersionSelector = new JComboBox<>());
+			row3.add(this.loaderVersionSelector = createVersionSelector());
 			this.loaderVersionSelector.setPreferredSize(new Dimension(200, 26));
-			this.loaderVersionSelector.addItem(Localization.get("gui.install.loading"));
-			this.loaderVersionSelector.setEnabled(false);
 
 			row3.add(this.showLoaderBetasCheckBox = new JCheckBox(Localization.get("gui.loader.version.betas")));
 			this.showLoaderBetasCheckBox.setEnabled(false);
 			this.showLoaderBetasCheckBox.addItemListener(e -> {
-				if (this.loaderVersions() != null) {
-					this.showLoaderBetas = e.getStateChange() == ItemEvent.SELECTED;
-					populateLoaderVersions(GameSide.CLIENT, this.loaderVersionSelector, this.loaderVersions(this.loaderType()), this.showLoaderBetas);
-				}
+				this.showLoaderBetas = e.getStateChange() == ItemEvent.SELECTED;
+				this.receiveLoaderVersions();
 			});
 
 			this.loaderTypeSelector.addItemListener(e -> {
-				if (this.loaderVersions() != null) {
-					populateLoaderVersions(GameSide.CLIENT, this.loaderVersionSelector, this.loaderVersions(this.loaderType()), this.showLoaderBetas);
+				if (e.getStateChange() == ItemEvent.SELECTED) {
+					this.loadLoaderVersions();
 				}
 			});
 		}
@@ -183,6 +176,8 @@ final class ClientPanel extends AbstractPanel implements Consumer<InstallMessage
 			this.installButton.addActionListener(this::install);
 		}
 
+		this.addProgressRow();
+
 		// launcher type action handling
 		{
 			this.launcherTypeSelector.addItemListener(item -> {
@@ -191,12 +186,12 @@ final class ClientPanel extends AbstractPanel implements Consumer<InstallMessage
 					this.generateProfileCheckBox.setVisible(true);
 					this.copyProfilePathCheckBox.setVisible(false);
 					this.installLocation.setText(OsPaths.getDefaultInstallationDir().toString());
-					this.installButton.setText(Localization.get("gui.install"));
+					this.updateInstallButton();
 					break;
 				case MULTIMC:
 					this.generateProfileCheckBox.setVisible(false);
 					this.copyProfilePathCheckBox.setVisible(true);
-					this.installButton.setText(Localization.get("gui.install.mmc"));
+					this.updateInstallButton();
 					this.installLocation.setText(System.getProperty("user.dir"));
 					break;
 				default:
@@ -214,7 +209,7 @@ final class ClientPanel extends AbstractPanel implements Consumer<InstallMessage
 		LauncherType launcherType = this.launcherType();
 		LoaderType loaderType = this.loaderType();
 
-		Action<InstallMessageType> action = Action.installClient(
+		Action<InstallMessage> action = Action.installClient(
 				minecraftVersion,
 				launcherType,
 				loaderType,
@@ -223,17 +218,21 @@ final class ClientPanel extends AbstractPanel implements Consumer<InstallMessage
 				this.intermediaryVersions().get(minecraftVersion),
 				this.installLocation.getText(),
 				this.generateProfile,
-				this.copyProfilePath
+				this.copyProfilePath,
+				false,
+				false,
+				null
 		);
 
-		AtomicReference<InstallMessageType> result = new AtomicReference<>();
-		action.run(result::set);
+		boolean copyProfilePath = this.copyProfilePath;
 
-		if (launcherType == LauncherType.MULTIMC) {
-			showMmcPackGenerationMessage(loaderType, this.copyProfilePath, result.get());
-		} else {
-			showInstalledMessage(loaderType, result.get());
-		}
+		this.runInstall(action, this.installButton, result -> {
+			if (launcherType == LauncherType.MULTIMC) {
+				showMmcPackGenerationMessage(loaderType, copyProfilePath, result);
+			} else {
+				showInstalledMessage(loaderType, result);
+			}
+		});
 	}
 
 	private static void showMmcPackGenerationMessage(LoaderType type, boolean copyProfilePath, InstallMessageType msg) {
@@ -260,16 +259,39 @@ final class ClientPanel extends AbstractPanel implements Consumer<InstallMessage
 		return ((LoaderLabel) this.loaderTypeSelector.getSelectedItem()).type;
 	}
 
-	void receiveVersions(VersionManifest manifest, Map<LoaderType, List<String>> loaderVersions, List<Intermediary> intermediaryVersions) {
-		super.receiveVersions(GameSide.CLIENT, manifest, loaderVersions, intermediaryVersions);
-
-		populateMinecraftVersions(GameSide.CLIENT, this.minecraftVersionSelector, this.manifest(), this.intermediaryVersions(), this.showSnapshots);
+	@Override
+	void receiveMinecraftVersions() {
+		this.populateMinecraftVersions(this.minecraftVersionSelector, this.showSnapshots);
 		this.showSnapshotsCheckBox.setEnabled(true);
-		populateLoaderVersions(GameSide.CLIENT, this.loaderVersionSelector, this.loaderVersions(this.loaderType()), this.showLoaderBetas);
-		this.showLoaderBetasCheckBox.setEnabled(true);
+		this.updateInstallButton();
+	}
+
+	@Override
+	void receiveLoaderVersions() {
+		@Nullable
+		List<String> loaderVersions = this.loaderVersions(this.loaderType());
+
+		if (loaderVersions == null) {
+			showLoading(this.loaderVersionSelector);
+			this.showLoaderBetasCheckBox.setEnabled(false);
+		} else {
+			this.populateLoaderVersions(this.loaderVersionSelector, this.showLoaderBetas);
+			this.showLoaderBetasCheckBox.setEnabled(true);
+		}
+
+		this.updateInstallButton();
+	}
+
+	private void updateInstallButton() {
+		boolean loaded = this.minecraftVersionsLoaded() && this.loaderVersions(this.loaderType()) != null;
+
+		if (!loaded) {
+			this.installButton.setText(Localization.get("gui.install.loading"));
+		} else {
+			this.installButton.setText(Localization.get(this.launcherType() == LauncherType.MULTIMC ? "gui.install.mmc" : "gui.install"));
+		}
 
-		this.installButton.setText(Localization.get("gui.install"));
-		this.installButton.setEnabled(true);
+		this.installButton.setEnabled(this.canInstall());
 	}
 
 	@Override
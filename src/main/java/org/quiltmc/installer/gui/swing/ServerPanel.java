@@ -24,7 +24,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.OptionalInt;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 import javax.swing.*;
@@ -32,10 +31,9 @@ import javax.swing.*;
 import org.jetbrains.annotations.Nullable;
 import org.quiltmc.installer.GameSide;
 import org.quiltmc.installer.Gsons;
-import org.quiltmc.installer.Intermediary;
 import org.quiltmc.installer.LoaderType;
 import org.quiltmc.installer.Localization;
-import org.quiltmc.installer.VersionManifest;
+import org.quiltmc.installer.ServerScripts;
 import org.quiltmc.installer.action.Action;
 import org.quiltmc.installer.action.InstallMessageType;
 import org.quiltmc.installer.action.InstallServer;
@@ -58,30 +56,27 @@ final class ServerPanel extends AbstractPanel implements Consumer<InstallMessage
 	private boolean generateLaunchScripts = false;
 
 	private boolean downloadServerAutoSelected = true;
-	private boolean generateLaunchScriptsAutoSelected = true;
 
 	ServerPanel(SwingInstaller gui) {
-		super(gui);
+		super(gui, GameSide.SERVER);
 
 		// Minecraft version
 		{
 			JComponent row1 = this.addRow();
 
 			row1.add(new JLabel(Localization.get("gui.game.version")));
-			row1.add(this.minecraftVersionSelector = new JComboBox<>());
+			row1.add(this.minecraftVersionSelector = createVersionSelector());
 			// Set the preferred size so we do not need to repack the window
 			// The chosen width is so we are wider than b1.9-pre4-201110131434
 			this.minecraftVersionSelector.setPreferredSize(new Dimension(220, 26));
-			this.minecraftVersionSelector.addItem(Localization.get("gui.install.loading"));
-			this.minecraftVersionSelector.setEnabled(false);
 			this.minecraftVersionSelector.addActionListener(e -> updateFlags());
 			row1.add(this.showSnapshotsCheckBox = new JCheckBox(Localization.get("gui.game.version.snapshots")));
 			this.showSnapshotsCheckBox.setEnabled(false);
 			this.showSnapshotsCheckBox.addItemListener(e -> {
 				// Versions are already loaded, repopulate the combo box
-				if (this.manifest() != null) {
+				if (this.minecraftVersionsLoaded()) {
 					this.showSnapshots = e.getStateChange() == ItemEvent.SELECTED;
-					populateMinecraftVersions(GameSide.SERVER, this.minecraftVersionSelector, this.manifest(), this.intermediaryVersions(), this.showSnapshots);
+					this.populateMinecraftVersions(this.minecraftVersionSelector, this.showSnapshots);
 				}
 			});
 		}
@@ -104,23 +99,18 @@ final class ServerPanel extends AbstractPanel implements Consumer<InstallMessage
 			JComponent row3 = this.addRow();
 
 			row3.add(new JLabel(Localization.get("gui.loader.version")));
-			row3.add(this.loaderVersionSelector = new JComboBox<>());
+			row3.add(this.loaderVersionSelector = createVersionSelector());
 			this.loaderVersionSelector.setPreferredSize(new Dimension(200, 26));
-			this.loaderVersionSelector.addItem(Localization.get("gui.install.loading"));
-			this.loaderVersionSelector.setEnabled(false);
 			row3.add(this.showLoaderBetasCheckBox = new JCheckBox(Localization.get("gui.loader.version.betas")));
 			this.showLoaderBetasCheckBox.setEnabled(false);
 			this.showLoaderBetasCheckBox.addItemListener(e -> {
-				// Versions are already loaded, repopulate the combo box
-				if (this.loaderVersions() != null) {
-					this.showLoaderBetas = e.getStateChange() == ItemEvent.SELECTED;
-					populateLoaderVersions(GameSide.SERVER, this.loaderVersionSelector, this.loaderVersions(this.loaderType()), this.showLoaderBetas);
-				}
+				this.showLoaderBetas = e.getStateChange() == ItemEvent.SELECTED;
+				this.receiveLoaderVersions();
 			});
 
 			this.loaderTypeSelector.addItemListener(e -> {
-				if (this.loaderVersions() != null) {
-					populateLoaderVersions(GameSide.SERVER, this.loaderVersionSelector, this.loaderVersions(this.loaderType()), this.showLoaderBetas);
+				if (e.getStateChange() == ItemEvent.SELECTED) {
+					this.loadLoaderVersions();
 				}
 			});
 		}
@@ -161,8 +151,6 @@ final class ServerPanel extends AbstractPanel implements Consumer<InstallMessage
 			generateLaunchScriptsButton.addItemListener(e -> {
 				this.generateLaunchScripts = e.getStateChange() == ItemEvent.SELECTED;
 			});
-			generateLaunchScriptsButton.setToolTipText("Coming soon!");
-			generateLaunchScriptsButton.setEnabled(false);
 		}
 
 		// Install button
@@ -172,7 +160,10 @@ final class ServerPanel extends AbstractPanel implements Consumer<InstallMessage
 			row6.add(this.installButton = new JButton());
 			this.installButton.setEnabled(false);
 			this.installButton.setText(Localization.get("gui.install.loading"));
+			this.installButton.addActionListener(this::install);
 		}
+
+		this.addProgressRow();
 	}
 
 	@Override
@@ -180,18 +171,35 @@ final class ServerPanel extends AbstractPanel implements Consumer<InstallMessage
 		return ((LoaderLabel) this.loaderTypeSelector.getSelectedItem()).type;
 	}
 
-	void receiveVersions(VersionManifest manifest, Map<LoaderType, List<String>> loaderVersions, List<Intermediary> intermediaryVersions) {
-		super.receiveVersions(GameSide.SERVER, manifest, loaderVersions, intermediaryVersions);
-
-		populateMinecraftVersions(GameSide.SERVER, this.minecraftVersionSelector, this.manifest(), this.intermediaryVersions(), this.showSnapshots);
+	@Override
+	void receiveMinecraftVersions() {
+		this.populateMinecraftVersions(this.minecraftVersionSelector, this.showSnapshots);
 		updateFlags();
 		this.showSnapshotsCheckBox.setEnabled(true);
-		populateLoaderVersions(GameSide.SERVER, this.loaderVersionSelector, this.loaderVersions(this.loaderType()), this.showLoaderBetas);
-		this.showLoaderBetasCheckBox.setEnabled(true);
+		this.updateInstallButton();
+	}
+
+	@Override
+	void receiveLoaderVersions() {
+		@Nullable
+		List<String> loaderVersions = this.loaderVersions(this.loaderType());
 
-		this.installButton.setText(Localization.get("gui.install"));
-		this.installButton.setEnabled(true);
-		this.installButton.addActionListener(this::install);
+		if (loaderVersions == null) {
+			showLoading(this.loaderVersionSelector);
+			this.showLoaderBetasCheckBox.setEnabled(false);
+		} else {
+			this.populateLoaderVersions(this.loaderVersionSelector, this.showLoaderBetas);
+			this.showLoaderBetasCheckBox.setEnabled(true);
+		}
+
+		this.updateInstallButton();
+	}
+
+	private void updateInstallButton() {
+		boolean loaded = this.minecraftVersionsLoaded() && this.loaderVersions(this.loaderType()) != null;
+
+		this.installButton.setText(Localization.get(loaded ? "gui.install" : "gui.install.loading"));
+		this.installButton.setEnabled(this.canInstall());
 	}
 
 	private void install(ActionEvent event) {
@@ -205,12 +213,13 @@ final class ServerPanel extends AbstractPanel implements Consumer<InstallMessage
 					JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 		}
 
-		// TODO: Re-enable once scripts are implemented
-		/*if (!generateLaunchScripts && generateLaunchScriptsAutoSelected) {
+		boolean scriptsExist = ServerScripts.exist(Paths.get(this.installLocation.getText()));
+
+		if (!generateLaunchScripts && !scriptsExist) {
 			cancel = cancel | !AbstractPanel.showPopup(Localization.get("dialog.install.server.no-script"), Localization.get("dialog.install.server.no-script.description"), JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
-		} else if (generateLaunchScripts && !generateLaunchScriptsAutoSelected) {
+		} else if (generateLaunchScripts && scriptsExist) {
 			cancel = cancel | !AbstractPanel.showPopup(Localization.get("dialog.install.server.overwrite-script"), Localization.get("dialog.install.server.overwrite-script.description"), JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
-		}*/
+		}
 
 		if (cancel) {
 			return;
@@ -227,13 +236,14 @@ final class ServerPanel extends AbstractPanel implements Consumer<InstallMessage
 				OptionalInt.empty(),
 				this.intermediaryVersions().get(minecraftVersion),
 				this.installLocation.getText(),
-				this.generateLaunchScripts,
-				this.downloadServer
+				this.generateLaunchScripts ? ServerScripts.Options.DEFAULT : null,
+				this.downloadServer,
+				false,
+				false,
+				false
 		);
 
-		AtomicReference<InstallMessageType> result = new AtomicReference<>();
-		action.run(result::set);
-		showInstalledMessage(loaderType, result.get());
+		this.runInstall(action, this.installButton, result -> showInstalledMessage(loaderType, result));
 	}
 
 	private void updateFlags() {
@@ -258,7 +268,8 @@ final class ServerPanel extends AbstractPanel implements Consumer<InstallMessage
 				this.downloadServerJarButton.setSelected(!version.equals(this.minecraftVersionSelector.getSelectedItem())),
 				SwingUtilities::invokeLater);
 
-		// TODO detect install script
+		CompletableFuture.supplyAsync(() -> ServerScripts.exist(Paths.get(this.installLocation.getText())))
+				.thenAcceptAsync(exist -> this.generateLaunchScriptsButton.setSelected(!exist), SwingUtilities::invokeLater);
 	}
 
 	@Override
@@ -16,17 +16,11 @@
 
 package org.quiltmc.installer.gui.swing;
 
-import org.quiltmc.installer.Intermediary;
-import org.quiltmc.installer.LoaderType;
 import org.quiltmc.installer.Localization;
-import org.quiltmc.installer.OrnitheMeta;
-import org.quiltmc.installer.VersionManifest;
 
 import javax.swing.*;
 import java.awt.*;
 import java.util.*;
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * The logic side of the swing gui for the installer.
@@ -34,6 +28,7 @@ import java.util.stream.Collectors;
 public final class SwingInstaller extends JFrame {
 	private final ClientPanel clientPanel;
 	private final ServerPanel serverPanel;
+	private final VersionLoader versionLoader;
 
 	public static void run() {
 		try {
@@ -55,35 +50,11 @@ public final class SwingInstaller extends JFrame {
 			contentPane.addTab(Localization.get("tab.client"), null, this.clientPanel = new ClientPanel(this), Localization.get("tab.client.tooltip"));
 			contentPane.addTab(Localization.get("tab.server"), null, this.serverPanel = new ServerPanel(this), Localization.get("tab.server.tooltip"));
 
-			// Start version lookup before we show the window
-			// Lookup loader and intermediary
-			Set<OrnitheMeta.Endpoint<?>> endpoints = new HashSet<>();
-			for (LoaderType type : LoaderType.values()) {
-				endpoints.add(OrnitheMeta.loaderVersionsEndpoint(intermediaryGen, type));
-			}
-			endpoints.add(OrnitheMeta.intermediaryVersionsEndpoint(intermediaryGen));
+			this.versionLoader = new VersionLoader(this, intermediaryGen);
 
-			OrnitheMeta.create(OrnitheMeta.ORNITHE_META_URL, endpoints).thenAcceptBothAsync(VersionManifest.create(intermediaryGen), ((quiltMeta, manifest) -> {
-				Map<LoaderType, List<String>> loaderVersions = new EnumMap<>(LoaderType.class);
-				for (LoaderType type : LoaderType.values()) {
-					loaderVersions.put(type, quiltMeta.getEndpoint(OrnitheMeta.loaderVersionsEndpoint(intermediaryGen, type)).stream().filter(v -> {
-						if (type != LoaderType.QUILT) {
-							return true;
-						}
-						// TODO HACK HACK HACK
-						// This is a hack to filter out old versions of Loader which we know will not support finding the main class.
-						return !(v.startsWith("0.16.0-beta.") && v.length() == 13 && v.charAt(12) != '9');
-					}).collect(Collectors.toList()));
-				}
-				List<Intermediary> intermediaryVersions = quiltMeta.getEndpoint(OrnitheMeta.intermediaryVersionsEndpoint(intermediaryGen));
-
-				this.clientPanel.receiveVersions(manifest, loaderVersions, intermediaryVersions);
-				this.serverPanel.receiveVersions(manifest, loaderVersions, intermediaryVersions);
-			})).exceptionally(e -> {
-				e.printStackTrace();
-				AbstractPanel.displayError(this, e);
-				return null;
-			});
+			// Each panel only looks up its versions once it is shown, starting with the first one before we show the window
+			contentPane.addChangeListener(e -> ((AbstractPanel) contentPane.getSelectedComponent()).loadVersions());
+			this.clientPanel.loadVersions();
 
 			this.setContentPane(contentPane);
 			this.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
@@ -102,4 +73,8 @@ public final class SwingInstaller extends JFrame {
 			throw new IllegalStateException(); // Make javac happy
 		}
 	}
+
+	VersionLoader versionLoader() {
+		return this.versionLoader;
+	}
 }
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.installer.gui.swing;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+import javax.swing.JComboBox;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A combo box model over a list of versions which is replaced as a whole.
+ *
+ * <p>Replacing the versions fires a single change for the whole list, rather than one event per version as adding
+ * them one by one to a {@link javax.swing.DefaultComboBoxModel} would. The versions are also indexed in sorted order,
+ * so typing part of a version jumps to it without scanning every version.
+ */
+final class VersionComboBoxModel extends AbstractListModel<String> implements ComboBoxModel<String> {
+	/**
+	 * Typing within this long of the last key continues the search, rather than starting a new one.
+	 */
+	private static final long SEARCH_TIMEOUT_MILLIS = 1000;
+	private List<String> versions = Collections.emptyList();
+	/**
+	 * The versions in lower case, sorted, for searching by prefix.
+	 */
+	private String[] sortedKeys = new String[0];
+	/**
+	 * The position in {@link #versions} of each entry of {@link #sortedKeys}.
+	 */
+	private int[] sortedPositions = new int[0];
+	@Nullable
+	private Object selected;
+
+	/**
+	 * Replaces the versions. The selected version stays selected if it is still there, otherwise the first one is selected.
+	 */
+	void setVersions(List<String> versions) {
+		int oldSize = this.versions.size();
+		this.versions = versions;
+		this.index();
+
+		if (this.selected == null || !versions.contains(this.selected)) {
+			this.selected = versions.isEmpty() ? null : versions.get(0);
+		}
+
+		int changed = Math.max(oldSize, versions.size());
+
+		if (changed > 0) {
+			this.fireContentsChanged(this, 0, changed - 1);
+		}
+	}
+
+	private void index() {
+		Integer[] order = new Integer[this.versions.size()];
+		String[] keys = new String[order.length];
+
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+			keys[i] = this.versions.get(i).toLowerCase(Locale.ROOT);
+		}
+
+		// Ties keep the order of the list, so the first matching version in the list is found first
+		Arrays.sort(order, (a, b) -> keys[a].compareTo(keys[b]));
+
+		this.sortedKeys = new String[order.length];
+		this.sortedPositions = new int[order.length];
+
+		for (int i = 0; i < order.length; i++) {
+			this.sortedKeys[i] = keys[order[i]];
+			this.sortedPositions[i] = order[i];
+		}
+	}
+
+	/**
+	 * Finds the version to jump to for a typed prefix: the version equal to it if there is one, and otherwise the
+	 * first version in the list starting with it.
+	 *
+	 * @return the position of the version in the list, or {@code -1} if no version starts with the prefix
+	 */
+	int search(String prefix) {
+		String key = prefix.toLowerCase(Locale.ROOT);
+		int start = Arrays.binarySearch(this.sortedKeys, key);
+
+		if (start >= 0) {
+			// Go back to the first of several equal versions
+			while (start > 0 && this.sortedKeys[start - 1].equals(key)) {
+				start--;
+			}
+
+			return this.sortedPositions[start];
+		}
+
+		int found = -1;
+
+		// Every version starting with the prefix sorts right after where the prefix itself would go
+		for (int i = -start - 1; i < this.sortedKeys.length && this.sortedKeys[i].startsWith(key); i++) {
+			if (found == -1 || this.sortedPositions[i] < found) {
+				found = this.sortedPositions[i];
+			}
+		}
+
+		return found;
+	}
+
+	JComboBox.KeySelectionManager keySelectionManager() {
+		return new JComboBox.KeySelectionManager() {
+			private final StringBuilder typed = new StringBuilder();
+			private long lastKey;
+
+			@Override
+			@SuppressWarnings("rawtypes")
+			public int selectionForKey(char key, ComboBoxModel model) {
+				long now = System.currentTimeMillis();
+
+				if (now - this.lastKey > SEARCH_TIMEOUT_MILLIS) {
+					this.typed.setLength(0);
+				}
+
+				this.lastKey = now;
+				this.typed.append(key);
+
+				int found = VersionComboBoxModel.this.search(this.typed.toString());
+
+				if (found == -1 && this.typed.length() > 1) {
+					// Nothing matches the whole prefix, start over from the key just typed
+					this.typed.setLength(0);
+					this.typed.append(key);
+					found = VersionComboBoxModel.this.search(this.typed.toString());
+				}
+
+				return found;
+			}
+		};
+	}
+
+	@Override
+	public void setSelectedItem(@Nullable Object item) {
+		if (item == null ? this.selected != null : !item.equals(this.selected)) {
+			this.selected = item;
+			this.fireContentsChanged(this, -1, -1);
+		}
+	}
+
+	@Nullable
+	@Override
+	public Object getSelectedItem() {
+		return this.selected;
+	}
+
+	@Override
+	public int getSize() {
+		return this.versions.size();
+	}
+
+	@Override
+	public String getElementAt(int index) {
+		return this.versions.get(index);
+	}
+}
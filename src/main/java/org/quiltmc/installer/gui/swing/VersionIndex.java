@@ -0,0 +1,97 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.installer.gui.swing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.quiltmc.installer.Intermediary;
+import org.quiltmc.installer.VersionManifest;
+
+/**
+ * Versions split once into the stable ones, which are shown by default, and all of them, so switching between
+ * the two is just a matter of showing the other list.
+ */
+final class VersionIndex {
+	private final List<String> stable;
+	private final List<String> all;
+
+	private VersionIndex(List<String> stable, List<String> all) {
+		this.stable = Collections.unmodifiableList(stable);
+		this.all = Collections.unmodifiableList(all);
+	}
+
+	/**
+	 * Indexes the Minecraft versions which have intermediaries, with releases as the stable versions.
+	 */
+	static VersionIndex minecraft(VersionManifest manifest, Map<String, Intermediary> intermediaryVersions) {
+		List<String> releases = new ArrayList<>();
+		List<String> all = new ArrayList<>();
+
+		for (VersionManifest.Version version : manifest) {
+			if (!intermediaryVersions.containsKey(version.id())) {
+				continue;
+			}
+
+			switch (version.type()) {
+			case "release":
+				releases.add(version.id());
+				all.add(version.id());
+				break;
+			case "snapshot":
+			case "old_beta":
+			case "old_alpha":
+			case "alpha_server":
+			case "classic_server":
+				all.add(version.id());
+				break;
+			default:
+			}
+		}
+
+		return new VersionIndex(releases, all);
+	}
+
+	/**
+	 * Indexes loader versions, with the ones which are not betas as the stable versions.
+	 */
+	static VersionIndex loader(List<String> loaderVersions) {
+		List<String> stable = new ArrayList<>();
+
+		for (String loaderVersion : loaderVersions) {
+			if (!loaderVersion.contains("-")) {
+				stable.add(loaderVersion);
+			}
+		}
+
+		return new VersionIndex(stable, new ArrayList<>(loaderVersions));
+	}
+
+	/**
+	 * @param unstable whether to include snapshots or betas
+	 * @return the versions, in the order they were given
+	 */
+	List<String> get(boolean unstable) {
+		return unstable ? this.all : this.stable;
+	}
+
+	List<String> all() {
+		return this.all;
+	}
+}
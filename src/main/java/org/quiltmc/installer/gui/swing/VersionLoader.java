@@ -0,0 +1,150 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.installer.gui.swing;
+
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.swing.SwingUtilities;
+
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.installer.Intermediary;
+import org.quiltmc.installer.LoaderType;
+import org.quiltmc.installer.OrnitheMeta;
+import org.quiltmc.installer.VersionManifest;
+import org.quiltmc.installer.util.Sets;
+
+/**
+ * Loads the version data shown by the panels on demand, and shares it between them.
+ *
+ * <p>Nothing is requested until a panel first asks for it, such as the loader versions of a loader type which
+ * has not been selected yet. Subscribers are called on the event dispatch thread, first with the copy from the last
+ * run or the one embedded in the installer if there is one, and again once the current data has been fetched.
+ *
+ * <p>Must only be used from the event dispatch thread.
+ */
+final class VersionLoader {
+	private final Component parent;
+	private final OptionalInt intermediaryGen;
+	private final Map<Object, Source<?>> sources = new HashMap<>();
+	private boolean errorShown;
+
+	VersionLoader(Component parent, OptionalInt intermediaryGen) {
+		this.parent = parent;
+		this.intermediaryGen = intermediaryGen;
+	}
+
+	void manifest(Consumer<VersionManifest> subscriber) {
+		this.subscribe("manifest", () -> VersionManifest.peek(this.intermediaryGen), () -> VersionManifest.create(this.intermediaryGen), subscriber);
+	}
+
+	void intermediaryVersions(Consumer<List<Intermediary>> subscriber) {
+		this.endpoint(OrnitheMeta.intermediaryVersionsEndpoint(this.intermediaryGen), Function.identity(), subscriber);
+	}
+
+	void loaderVersions(LoaderType type, Consumer<List<String>> subscriber) {
+		this.endpoint(OrnitheMeta.loaderVersionsEndpoint(this.intermediaryGen, type), versions -> versions.stream().filter(v -> {
+			if (type != LoaderType.QUILT) {
+				return true;
+			}
+			// TODO HACK HACK HACK
+			// This is a hack to filter out old versions of Loader which we know will not support finding the main class.
+			return !(v.startsWith("0.16.0-beta.") && v.length() == 13 && v.charAt(12) != '9');
+		}).collect(Collectors.toList()), subscriber);
+	}
+
+	private <T, R> void endpoint(OrnitheMeta.Endpoint<T> endpoint, Function<T, R> mapper, Consumer<R> subscriber) {
+		this.subscribe(endpoint, () -> {
+			@Nullable
+			OrnitheMeta meta = OrnitheMeta.peek(OrnitheMeta.ORNITHE_META_URL, Sets.of(endpoint));
+
+			return meta == null ? null : mapper.apply(meta.getEndpoint(endpoint));
+		}, () -> OrnitheMeta.create(OrnitheMeta.ORNITHE_META_URL, Sets.of(endpoint)).thenApply(meta -> mapper.apply(meta.getEndpoint(endpoint))), subscriber);
+	}
+
+	/**
+	 * @param peek reads the data without touching the network, returning {@code null} if there is no copy of it
+	 * @param fetch fetches the current data
+	 */
+	private <T> void subscribe(Object key, Supplier<T> peek, Supplier<CompletableFuture<T>> fetch, Consumer<T> subscriber) {
+		@SuppressWarnings("unchecked")
+		Source<T> source = (Source<T>) this.sources.computeIfAbsent(key, k -> new Source<>(peek, fetch));
+
+		source.subscribe(subscriber);
+	}
+
+	private final class Source<T> {
+		private final List<Consumer<T>> subscribers = new ArrayList<>();
+		@Nullable
+		private T value;
+		/**
+		 * Whether the value was fetched this run, rather than read from the cache or the installer.
+		 */
+		private boolean current;
+
+		Source(Supplier<T> peek, Supplier<CompletableFuture<T>> fetch) {
+			// Reading the cache still touches the disk, so keep it off the event dispatch thread as well
+			CompletableFuture.supplyAsync(peek).thenAcceptAsync(value -> {
+				if (value != null && !this.current) {
+					this.publish(value);
+				}
+			}, SwingUtilities::invokeLater).exceptionally(e -> null); // The fetch still follows
+
+			fetch.get().thenAcceptAsync(value -> {
+				this.current = true;
+				this.publish(value);
+			}, SwingUtilities::invokeLater).exceptionally(e -> {
+				e.printStackTrace();
+
+				// Keep showing the data we already have, it is most likely still current
+				SwingUtilities.invokeLater(() -> {
+					if (this.value == null && !VersionLoader.this.errorShown) {
+						VersionLoader.this.errorShown = true;
+						AbstractPanel.displayError(VersionLoader.this.parent, e);
+					}
+				});
+
+				return null;
+			});
+		}
+
+		void subscribe(Consumer<T> subscriber) {
+			this.subscribers.add(subscriber);
+
+			if (this.value != null) {
+				subscriber.accept(this.value);
+			}
+		}
+
+		private void publish(T value) {
+			this.value = value;
+
+			for (Consumer<T> subscriber : this.subscribers) {
+				subscriber.accept(value);
+			}
+		}
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.installer.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public class Hashes {
+
+	public static MessageDigest sha1() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e); // Every JVM is required to support SHA-1
+		}
+	}
+
+	public static String sha1(Path file) throws IOException {
+		MessageDigest digest = sha1();
+		byte[] buffer = new byte[8192];
+
+		try (InputStream stream = Files.newInputStream(file)) {
+			for (int length; (length = stream.read(buffer)) != -1; ) {
+				digest.update(buffer, 0, length);
+			}
+		}
+
+		return toHex(digest.digest());
+	}
+
+	public static String toHex(byte[] hash) {
+		StringBuilder builder = new StringBuilder(hash.length * 2);
+
+		for (byte b : hash) {
+			builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+			builder.append(Character.forDigit(b & 0xF, 16));
+		}
+
+		return builder.toString();
+	}
+}
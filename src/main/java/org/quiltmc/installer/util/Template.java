@@ -0,0 +1,172 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.installer.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A text template with {@code ${name}} placeholders.
+ *
+ * <p>Templates are parsed once into literal text and placeholders, and rendered in a single pass.
+ * Rendering fails if a placeholder has no value, or if a value is given for a variable the template does not use.
+ */
+public final class Template {
+	private static final String OPEN = "${";
+	private static final char CLOSE = '}';
+	private static final Map<String, Template> RESOURCES = new ConcurrentHashMap<>();
+	/**
+	 * The literal text before each placeholder, followed by the text after the last one.
+	 */
+	private final String[] literals;
+	private final String[] placeholders;
+	private final Set<String> variables;
+	private final int literalLength;
+
+	private Template(String[] literals, String[] placeholders) {
+		this.literals = literals;
+		this.placeholders = placeholders;
+
+		Set<String> variables = new LinkedHashSet<>();
+		Collections.addAll(variables, placeholders);
+		this.variables = Collections.unmodifiableSet(variables);
+
+		int length = 0;
+
+		for (String literal : literals) {
+			length += literal.length();
+		}
+
+		this.literalLength = length;
+	}
+
+	/**
+	 * Gets a template from the classpath, parsing it on first use.
+	 *
+	 * @param path the absolute path of the resource
+	 * @return the template
+	 */
+	public static Template resource(String path) {
+		return RESOURCES.computeIfAbsent(path, p -> {
+			try (InputStream stream = Template.class.getResourceAsStream(p)) {
+				if (stream == null) {
+					throw new IllegalArgumentException("Missing template " + p);
+				}
+
+				ByteArrayOutputStream os = new ByteArrayOutputStream();
+				byte[] buffer = new byte[1024];
+
+				for (int length; (length = stream.read(buffer)) != -1; ) {
+					os.write(buffer, 0, length);
+				}
+
+				return parse(new String(os.toByteArray(), StandardCharsets.UTF_8));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	/**
+	 * Parses a template.
+	 *
+	 * @param text the template text
+	 * @return the template
+	 * @throws IllegalArgumentException if a placeholder is not closed or has no name
+	 */
+	public static Template parse(String text) {
+		List<String> literals = new ArrayList<>();
+		List<String> placeholders = new ArrayList<>();
+		int pos = 0;
+
+		for (int start; (start = text.indexOf(OPEN, pos)) != -1; ) {
+			int end = text.indexOf(CLOSE, start + OPEN.length());
+
+			if (end == -1) {
+				throw new IllegalArgumentException("Unclosed placeholder at " + start);
+			}
+
+			String name = text.substring(start + OPEN.length(), end);
+
+			if (name.isEmpty()) {
+				throw new IllegalArgumentException("Empty placeholder at " + start);
+			}
+
+			literals.add(text.substring(pos, start));
+			placeholders.add(name);
+			pos = end + 1;
+		}
+
+		literals.add(text.substring(pos));
+
+		return new Template(literals.toArray(new String[0]), placeholders.toArray(new String[0]));
+	}
+
+	/**
+	 * @return the names of the variables used by this template
+	 */
+	public Set<String> variables() {
+		return this.variables;
+	}
+
+	/**
+	 * Renders this template.
+	 *
+	 * @param values the value of every variable used by this template
+	 * @return the rendered text
+	 * @throws IllegalArgumentException if a variable has no value, or a value is given for an unknown variable
+	 */
+	public String render(Map<String, String> values) {
+		for (String name : values.keySet()) {
+			if (!this.variables.contains(name)) {
+				throw new IllegalArgumentException("Unknown template variable " + name);
+			}
+		}
+
+		String[] resolved = new String[this.placeholders.length];
+		int length = this.literalLength;
+
+		for (int i = 0; i < resolved.length; i++) {
+			String value = values.get(this.placeholders[i]);
+
+			if (value == null) {
+				throw new IllegalArgumentException("Missing value for template variable " + this.placeholders[i]);
+			}
+
+			resolved[i] = value;
+			length += value.length();
+		}
+
+		StringBuilder builder = new StringBuilder(length);
+
+		for (int i = 0; i < resolved.length; i++) {
+			builder.append(this.literals[i]).append(resolved[i]);
+		}
+
+		return builder.append(this.literals[resolved.length]).toString();
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.installer.util;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes a zip file in a single pass.
+ *
+ * <p>The archive is written to a temporary file next to the target and only moved into place by {@link #commit()},
+ * so the target is never left half written. Entries which are already compressed are stored rather than
+ * compressed a second time.
+ */
+public final class ZipWriter implements Closeable {
+	private final Path target;
+	private final Path tmp;
+	private final ZipOutputStream zip;
+	private final byte[] buffer = new byte[8192];
+	private boolean committed;
+
+	/**
+	 * @param target the path of the zip file to write
+	 * @param level the compression level for deflated entries, from 0 to 9 or {@link java.util.zip.Deflater#DEFAULT_COMPRESSION}
+	 */
+	public ZipWriter(Path target, int level) throws IOException {
+		this.target = target;
+		this.tmp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+		this.zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(this.tmp)));
+		this.zip.setLevel(level);
+	}
+
+	/**
+	 * Writes an entry, storing it if its contents are already compressed and deflating it otherwise.
+	 */
+	public void write(String name, byte[] data) throws IOException {
+		this.write(name, data, isCompressed(name));
+	}
+
+	public void write(String name, byte[] data, boolean store) throws IOException {
+		ZipEntry entry = new ZipEntry(name);
+
+		if (store) {
+			// Stored entries must declare their size and checksum up front
+			CRC32 crc = new CRC32();
+			crc.update(data);
+
+			entry.setMethod(ZipEntry.STORED);
+			entry.setSize(data.length);
+			entry.setCompressedSize(data.length);
+			entry.setCrc(crc.getValue());
+		}
+
+		this.zip.putNextEntry(entry);
+		this.zip.write(data);
+		this.zip.closeEntry();
+	}
+
+	/**
+	 * Copies an entry of another zip file, streaming its contents. Stored entries stay stored.
+	 *
+	 * @param source the entry in the other zip file
+	 * @param data the contents of the entry
+	 */
+	public void copy(ZipEntry source, InputStream data) throws IOException {
+		ZipEntry entry = new ZipEntry(source.getName());
+		entry.setTime(source.getTime());
+
+		if (source.getMethod() == ZipEntry.STORED && source.getSize() >= 0 && source.getCrc() != -1) {
+			entry.setMethod(ZipEntry.STORED);
+			entry.setSize(source.getSize());
+			entry.setCompressedSize(source.getSize());
+			entry.setCrc(source.getCrc());
+		}
+
+		this.zip.putNextEntry(entry);
+
+		for (int length; (length = data.read(this.buffer)) != -1; ) {
+			this.zip.write(this.buffer, 0, length);
+		}
+
+		this.zip.closeEntry();
+	}
+
+	public void writeDirectory(String name) throws IOException {
+		this.zip.putNextEntry(new ZipEntry(name.endsWith("/") ? name : name + "/"));
+		this.zip.closeEntry();
+	}
+
+	/**
+	 * Finishes the archive and moves it to the target, replacing any existing file.
+	 */
+	public void commit() throws IOException {
+		this.zip.close();
+		Files.move(this.tmp, this.target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		this.committed = true;
+	}
+
+	/**
+	 * Discards the archive if it was not committed.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!this.committed) {
+			try {
+				this.zip.close();
+			} finally {
+				Files.deleteIfExists(this.tmp);
+			}
+		}
+	}
+
+	public static boolean isCompressed(String name) {
+		String lower = name.toLowerCase(Locale.ROOT);
+
+		return lower.endsWith(".png") || lower.endsWith(".jpg") || lower.endsWith(".jpeg")
+				|| lower.endsWith(".zip") || lower.endsWith(".jar") || lower.endsWith(".gz");
+	}
+}
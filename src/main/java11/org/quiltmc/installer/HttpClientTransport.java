@@ -0,0 +1,239 @@
+/*
+ * Copyright 2023 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.installer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A transport using the http client added in Java 11.
+ *
+ * <p>The client negotiates HTTP/2 where the server supports it, so concurrent requests to the same host
+ * are multiplexed over a single connection rather than each opening their own.
+ *
+ * <p>The request timeout of the client only covers waiting for the response headers, so reading the body is guarded
+ * separately: a read which makes no progress for {@link HttpTransports#READ_TIMEOUT} is interrupted and fails, the way
+ * the read timeout of a {@link java.net.URLConnection} would.
+ *
+ * <p>This class is only included in the multi-release part of the installer jar, and is picked up by
+ * {@link HttpTransports#createDefault()} when running on Java 11 or newer.
+ */
+final class HttpClientTransport implements HttpTransport {
+	private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(task -> {
+		Thread thread = new Thread(task, "Http Read Watchdog");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final HttpClient client = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_2)
+			.followRedirects(HttpClient.Redirect.NORMAL)
+			.connectTimeout(Duration.ofMillis(HttpTransports.CONNECT_TIMEOUT))
+			.build();
+	private final HttpTransport fallback = new UrlConnectionTransport();
+
+	@Override
+	public Response get(URL url, Map<String, String> headers) throws IOException {
+		if (!url.getProtocol().equals("http") && !url.getProtocol().equals("https")) {
+			// Such as file urls, which the http client does not support
+			return this.fallback.get(url, headers);
+		}
+
+		HttpRequest.Builder request;
+
+		try {
+			request = HttpRequest.newBuilder(url.toURI())
+					.timeout(Duration.ofMillis(HttpTransports.READ_TIMEOUT))
+					.header("Accept-Encoding", HttpTransports.ACCEPT_ENCODING)
+					.GET();
+		} catch (URISyntaxException e) {
+			throw new IOException("Invalid url " + url, e);
+		}
+
+		for (Map.Entry<String, String> header : headers.entrySet()) {
+			request.setHeader(header.getKey(), header.getValue());
+		}
+
+		try {
+			return new HttpClientResponse(this.client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream()));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while requesting " + url);
+		}
+	}
+
+	private static final class HttpClientResponse implements Response {
+		private final HttpResponse<InputStream> response;
+		private final InputStream rawBody;
+		@Nullable
+		private InputStream body;
+
+		HttpClientResponse(HttpResponse<InputStream> response) {
+			this.response = response;
+			this.rawBody = new ReadTimeoutInputStream(response.body());
+		}
+
+		@Override
+		public int statusCode() {
+			return this.response.statusCode();
+		}
+
+		@Nullable
+		@Override
+		public String header(String name) {
+			return this.response.headers().firstValue(name).orElse(null);
+		}
+
+		@Override
+		public long contentLength() {
+			// The length header is the length of the encoded body
+			if (HttpTransports.isEncoded(this.header("Content-Encoding"))) {
+				return -1;
+			}
+
+			return this.response.headers().firstValueAsLong("Content-Length").orElse(-1);
+		}
+
+		@Override
+		public InputStream body() throws IOException {
+			if (this.body == null) {
+				this.body = HttpTransports.decode(this.header("Content-Encoding"), this.rawBody);
+			}
+
+			return this.body;
+		}
+
+		@Override
+		public void close() throws IOException {
+			HttpTransports.drain(this.rawBody);
+		}
+	}
+
+	/**
+	 * Fails a read which has been waiting for data for longer than the read timeout.
+	 */
+	private static final class ReadTimeoutInputStream extends FilterInputStream {
+		private final Object lock = new Object();
+		@Nullable
+		private Thread reader;
+		private long readStart;
+		private boolean timedOut;
+		private boolean closed;
+
+		ReadTimeoutInputStream(InputStream in) {
+			super(in);
+			this.schedule(HttpTransports.READ_TIMEOUT);
+		}
+
+		private void schedule(long delay) {
+			WATCHDOG.schedule(this::check, delay, TimeUnit.MILLISECONDS);
+		}
+
+		private void check() {
+			synchronized (this.lock) {
+				if (this.closed) {
+					return;
+				}
+
+				long waited = this.reader == null ? 0 : System.currentTimeMillis() - this.readStart;
+
+				if (waited < HttpTransports.READ_TIMEOUT) {
+					this.schedule(HttpTransports.READ_TIMEOUT - waited);
+					return;
+				}
+
+				// Blocked reads of the response body only give up when interrupted
+				this.timedOut = true;
+				this.reader.interrupt();
+			}
+
+			try {
+				this.in.close();
+			} catch (IOException ignored) {
+				// Cancelling the body is only a courtesy to the connection
+			}
+		}
+
+		private void begin() throws IOException {
+			synchronized (this.lock) {
+				if (this.timedOut) {
+					throw new SocketTimeoutException("Read timed out");
+				}
+
+				this.reader = Thread.currentThread();
+				this.readStart = System.currentTimeMillis();
+			}
+		}
+
+		private void end() throws IOException {
+			synchronized (this.lock) {
+				this.reader = null;
+
+				if (this.timedOut) {
+					// The interrupt was only meant to stop the read
+					Thread.interrupted();
+					throw new SocketTimeoutException("Read timed out");
+				}
+			}
+		}
+
+		@Override
+		public int read() throws IOException {
+			this.begin();
+
+			try {
+				return super.read();
+			} finally {
+				this.end();
+			}
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			this.begin();
+
+			try {
+				return super.read(b, off, len);
+			} finally {
+				this.end();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			synchronized (this.lock) {
+				this.closed = true;
+			}
+
+			super.close();
+		}
+	}
+}
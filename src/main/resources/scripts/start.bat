@@ -0,0 +1,13 @@
+@echo off
+rem Generated by Ornithe Installer for ${host}
+rem Set JAVA to use a different Java installation, or edit JVM_ARGS to change the memory and garbage collector settings.
+
+cd /d "%~dp0"
+
+if not defined JAVA set JAVA=java
+set JVM_ARGS=${jvm_args}
+
+if exist "${cds_archive}" set JVM_ARGS=%JVM_ARGS% -XX:SharedArchiveFile=${cds_archive}
+
+"%JAVA%" %JVM_ARGS% -jar "${launch_jar}" nogui %*
+pause
@@ -0,0 +1,17 @@
+#!/usr/bin/env sh
+# Generated by Ornithe Installer for ${host}
+# Set JAVA to use a different Java installation, or edit JVM_ARGS to change the memory and garbage collector settings.
+
+cd "$(dirname "$0")" || exit 1
+
+if [ -z "$JAVA" ]; then
+	JAVA=java
+fi
+
+JVM_ARGS="${jvm_args}"
+
+if [ -f "${cds_archive}" ]; then
+	JVM_ARGS="$JVM_ARGS -XX:SharedArchiveFile=${cds_archive}"
+fi
+
+exec "$JAVA" $JVM_ARGS -jar "${launch_jar}" nogui "$@"